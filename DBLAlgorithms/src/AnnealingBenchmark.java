@@ -0,0 +1,39 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the force directed annealing with every cooling schedule and every move on 1slider
+ * instances of different sizes and prints the number of labels each found before the deadline.
+ * Usage: java AnnealingBenchmark [deadline in ms] [seeds]
+ */
+public class AnnealingBenchmark {
+
+    static final int WIDTH = 20;
+    static final int HEIGHT = 10;
+    //Points and range of the instances, a third or more of the labels do not fit
+    static final int[][] INSTANCES = {{100, 150}, {1000, 700}, {10000, 2000}};
+    static final String[] SCHEDULES = {"geometric", "reheat", "lundymees"};
+    static final String[] MOVES = {"slide", "random", "gap"};
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int seeds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        for (int[] instance : INSTANCES) {
+            int n = instance[0];
+            for (String schedule : SCHEDULES) {
+                for (String move : MOVES) {
+                    int labels = 0;
+                    for (int seed = 0; seed < seeds; seed++) {
+                        List<Point> points = DeadlineBenchmark.randomPoints(n, instance[1], new Random(seed));
+                        LabelingContext context = new LabelingContext(WIDTH, HEIGHT, n, new Random(seed),
+                                LabelingContext.DEFAULT_INDEX, LabelingContext.DEFAULT_EXACT_LIMIT, Deadline.after(millis));
+                        ForceDirectedSimulatedAnnealing solver = new ForceDirectedSimulatedAnnealing(context,
+                                CoolingSchedule.create(schedule, ForceDirectedSimulatedAnnealing.STAGES), MoveGenerator.create(move));
+                        labels += SolverPortfolio.countLabels(solver.getLabeledPoints1slider(points));
+                    }
+                    System.out.println(n + " points, " + schedule + ", " + move + ": " + labels + " labels");
+                }
+            }
+        }
+    }
+}
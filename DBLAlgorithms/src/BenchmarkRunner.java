@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs every model on random instances of a few sizes and reports the time, memory and
+ * output size of every run. Reads the label size from the header lines on standard input.
+ */
+public class BenchmarkRunner {
+    static int[] arr = { 10, 25, 100, 10000};
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        String index = System.getProperty("index", LabelingContext.DEFAULT_INDEX);
+        InputParser input;
+        try {
+            input = InputParser.parse(System.in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int width = input.width;
+        System.out.println("width: " + width);
+        int height = input.height;
+        System.out.println("height: " + height);
+        LabelSolver labelSolver;
+        String model = null;
+        List<PointData> outputList = null;
+        int n = arr.length;
+        for (int j = 0; j < n; j++) {
+            int numberOfPoints = arr[j];
+            LabelingContext context = new LabelingContext(width, height, numberOfPoints, new Random(), index,
+                    LabelingContext.DEFAULT_EXACT_LIMIT);
+            List<Point> inputList = RandomRunner.run(numberOfPoints);
+            for (int k = 0; k < 3; k++) {
+                long gcTime1 = gcTime();
+                long time1 = System.currentTimeMillis();
+                switch (k) {
+                    case 0: model = "2pos";  
+                            labelSolver = new GreedyGeneral(context);
+                            outputList = labelSolver.getLabeledPoints2pos(inputList);
+                            break;
+                    case 1: model = "4pos";
+                            labelSolver = new GreedyGeneral(context);
+                            outputList = labelSolver.getLabeledPoints4pos(inputList);
+                            break;
+                    case 2: model = "1slider";
+                            if (numberOfPoints != 10000) {
+                                labelSolver = new ForceDirectedSimulatedAnnealing(context);
+                            } else {
+                                labelSolver = new GreedyGeneral(context);
+                            }
+                            outputList = labelSolver.getLabeledPoints1slider(inputList);
+                            break;
+                        default: break;
+                }
+                long time2 = System.currentTimeMillis();
+                long gcTime2 = gcTime();
+                long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+                int numberOfLabels = 0;
+                for (int i = 0; i < numberOfPoints; i++) {
+                    PointData point = outputList.get(i);
+                    if (point.hasLabel()){
+                        numberOfLabels++;
+                    }
+                }   
+
+                //Time writing the full output on its own, to a stream that drops it
+                OutputWriter writer = new OutputWriter(new NullOutputStream());
+                long time3 = System.nanoTime();
+                try {
+                    writer.writeSolution(model, width, height, outputList);
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                long time4 = System.nanoTime();
+                System.out.println("For " + arr[j] + " points in " + model + " model " + numberOfLabels + " labels were placed in " + (time2 - time1) + " milliseconds"
+                        + " (heap used: " + heapUsed / (1024 * 1024) + " MB, GC: " + (gcTime2 - gcTime1) + " milliseconds,"
+                        + " output of " + writer.bytesWritten() / 1024 + " kB written in " + (time4 - time3) / 1000000 + " milliseconds)");
+            }
+            System.out.println();
+        }
+    }
+    
+    //Stream that throws away everything written to it
+    static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+    
+    //Total time spent in garbage collection so far
+    static long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionTime(), 0);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Stack;
+
+/**
+ * Compares the inner loop of the exact search on ConflictBitsets with the way BruteForceSolver
+ * used to do it, with the disabled labels on a Stack. Both run the same random descents: every
+ * point in x order gets a random candidate if it is not disabled, which disables everything it
+ * overlaps, and at the bottom everything is undone again.
+ * Usage: java BitsetBenchmark [descents]
+ */
+public class BitsetBenchmark {
+
+    static final int RUNS = 5;
+    static final int WIDTH = 20;
+    static final int HEIGHT = 10;
+
+    public static void main(String[] args) {
+        int descents = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        for (int n : new int[] {25, 100}) {
+            //Points close enough together for most labels to overlap a few others
+            int range = (int) Math.sqrt(n * 2.0 * WIDTH * HEIGHT);
+            List<Point> points = DeadlineBenchmark.randomPoints(n, range, new Random(n));
+            points.sort((a, b) -> Integer.compare(a.x, b.x));
+            LabelingContext context = new LabelingContext(WIDTH, HEIGHT, n);
+            int[] xs = new int[4 * n];
+            int[] ys = new int[4 * n];
+            CandidatePointData.candidateLabels(points, 4, WIDTH, HEIGHT, xs, ys);
+            ConflictGraph graph = ConflictGraph.build(xs, ys, context);
+            ConflictBitsets bitsets = new ConflictBitsets(graph);
+            List<LabelGeneral> labels = new ArrayList<>(4 * n);
+            for (int c = 0; c < 4 * n; c++) {
+                labels.add(new LabelGeneral(null, xs[c], ys[c]));
+            }
+            for (int c = 0; c < 4 * n; c++) {
+                LabelGeneral label = labels.get(c);
+                label.overlappingLabels = new ArrayList<>(graph.degree(c));
+                for (int i = graph.offsets[c]; i < graph.offsets[c + 1]; i++) {
+                    label.overlappingLabels.add(labels.get(graph.neighbours[i]));
+                }
+            }
+
+            for (int run = 0; run < RUNS; run++) {
+                long time1 = System.nanoTime();
+                int placedStack = descendStack(labels, n, descents, new Random(run));
+                long time2 = System.nanoTime();
+                int placedBits = descendBits(bitsets, n, descents, new Random(run));
+                long time3 = System.nanoTime();
+                if (placedStack != placedBits) {
+                    throw new IllegalStateException("The two loops placed a different number of labels");
+                }
+                System.out.println(n + " points, " + descents + " descents: Stack " + (time2 - time1) / 1000000
+                        + " ms, bitsets " + (time3 - time2) / 1000000 + " ms");
+            }
+        }
+    }
+
+    //The inner loop of BruteForceSolver before it used ConflictBitsets
+    static int descendStack(List<LabelGeneral> labels, int n, int descents, Random random) {
+        Stack<LabelGeneral> disabledLabels = new Stack<>();
+        int[] removed = new int[n];
+        int placed = 0;
+        for (int descent = 0; descent < descents; descent++) {
+            for (int p = 0; p < n; p++) {
+                LabelGeneral label = labels.get(4 * p + random.nextInt(4));
+                removed[p] = -1;
+                if (!disabledLabels.contains(label)) {
+                    removed[p] = 0;
+                    for (LabelGeneral overlap : label.overlappingLabels) {
+                        disabledLabels.push(overlap);
+                        removed[p]++;
+                    }
+                    disabledLabels.push(label);
+                    placed++;
+                }
+            }
+            for (int p = n - 1; p >= 0; p--) {
+                if (removed[p] != -1) {
+                    disabledLabels.pop();
+                    for (int i = 0; i < removed[p]; i++) {
+                        disabledLabels.pop();
+                    }
+                }
+            }
+        }
+        return placed;
+    }
+
+    //The same descents on ConflictBitsets, the words are saved before every OR
+    static int descendBits(ConflictBitsets bitsets, int n, int descents, Random random) {
+        long[] disabled = bitsets.newSet();
+        long[] saved = new long[n * bitsets.words];
+        int[] chosen = new int[n];
+        int placed = 0;
+        for (int descent = 0; descent < descents; descent++) {
+            for (int p = 0; p < n; p++) {
+                int c = 4 * p + random.nextInt(4);
+                chosen[p] = -1;
+                if (!ConflictBitsets.contains(disabled, c)) {
+                    chosen[p] = c;
+                    bitsets.save(disabled, c, saved, p * bitsets.words);
+                    bitsets.addConflicts(disabled, c);
+                    placed++;
+                }
+            }
+            for (int p = n - 1; p >= 0; p--) {
+                if (chosen[p] != -1) {
+                    bitsets.restore(disabled, chosen[p], saved, p * bitsets.words);
+                }
+            }
+        }
+        return placed;
+    }
+}
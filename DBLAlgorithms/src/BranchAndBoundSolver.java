@@ -0,0 +1,478 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Exact solver for the 2pos and 4pos models. Candidate c belongs to point c / k, where k is the
+ * number of candidates per point. The points are decided one by one in a fixed order, most
+ * constrained first: every live candidate of the point is tried, then no label. Choosing a candidate
+ * disables the candidates it overlaps, the disabled candidates are a bitset and undone from a trail.
+ * After every decision the undecided points fall apart into groups whose live candidates do not
+ * overlap, and every group is solved on its own.
+ * A point with a live candidate that is not in the way of any undecided point just gets that label.
+ * A branch is cut when it can not beat the best labeling found so far, a greedy one at first.
+ * The bound uses that labels with their left-bottom corner in the same width by height cell all
+ * overlap each other, so every cell holds at most one label: the labels still possible are at
+ * most a maximum matching between the undecided points and the cells of their live candidates.
+ * This holds for every grid of such cells, so the bound is the lowest over a few shifted grids.
+ */
+class BranchAndBoundSolver extends LabelSolver {
+
+    static final long NODE_LIMIT = 10000000; //Search nodes before the best labeling so far is returned
+    static final int GRIDS = 4; //Grids shifted by half a label in x, in y and in both
+
+    int points;
+    int candidates; //Per point
+    ConflictGraph graph;
+    int[][] cell; //Cell of the left-bottom corner of every candidate, per grid
+    int[] position; //Position of every point in the search order
+    long[] disabled; //Bitset of the candidates that overlap a chosen label
+    int[] trail; //Disabled candidates, in the order they were disabled
+    int trailSize;
+    boolean[] decided;
+    int[] choice; //Candidate of every point, -1 if none
+    int[] greedy; //Candidate of every point in the greedy labeling, -1 if none
+    long nodes;
+    long nodeLimit = NODE_LIMIT;
+    boolean optimal; //Was the whole tree searched
+
+    //Scratch space
+    int round;
+    int[] mark; //Round in which a point was last marked while splitting a group
+    int[] stamp; //Round in which a cell was last used in a matching
+    int[] matchedPoint; //Point matched to every cell, -1 if none
+    int[] visited; //Round in which a cell was last visited by an augmenting path
+
+    public BranchAndBoundSolver(LabelingContext context) {
+        super(context);
+        checkInterval = 16; //A node computes matchings over the whole group
+    }
+
+    @Override
+    List<PointData> getLabeledPoints2pos(List<Point> points) {
+        return solve(points, 2);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints4pos(List<Point> points) {
+        return solve(points, 4);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints1slider(List<Point> points) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    List<PointData> solve(List<Point> points, int candidates) {
+        this.points = points.size();
+        this.candidates = candidates;
+        int n = candidates * this.points;
+        choice = new int[this.points];
+        optimal = true;
+        if (width <= 0 || height <= 0) {
+            //Labels without area can not overlap
+            for (int p = 0; p < this.points; p++) {
+                choice[p] = candidates * p;
+            }
+            return result(points);
+        }
+
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        CandidatePointData.candidateLabels(points, candidates, width, height, xs, ys);
+        graph = ConflictGraph.build(xs, ys, context);
+        cell = new int[GRIDS][n];
+        int cells = 0;
+        for (int g = 0; g < GRIDS; g++) {
+            int shiftX = (g & 1) * width / 2;
+            int shiftY = (g >> 1) * height / 2;
+            LongIntMap cellMap = new LongIntMap(n);
+            for (int c = 0; c < n; c++) {
+                long key = LongIntMap.key(Math.floorDiv(xs[c] + shiftX, width), Math.floorDiv(ys[c] + shiftY, height));
+                int id = cellMap.get(key);
+                if (id == -1) {
+                    id = cellMap.size();
+                    cellMap.put(key, id);
+                }
+                cell[g][c] = id;
+            }
+            cells = Math.max(cells, cellMap.size());
+        }
+
+        greedy = GreedyGeneral.chooseCandidates(context, points, candidates);
+        for (int p = 0; p < this.points; p++) {
+            greedy[p] = greedy[p] == -1 ? -1 : candidates * p + greedy[p];
+        }
+
+        int[] order = searchOrder();
+        position = new int[this.points];
+        for (int i = 0; i < this.points; i++) {
+            position[order[i]] = i;
+        }
+        disabled = new long[(n + 63) >>> 6];
+        trail = new int[n];
+        decided = new boolean[this.points];
+        mark = new int[this.points];
+        stamp = new int[cells];
+        matchedPoint = new int[cells];
+        visited = new int[cells];
+        Arrays.fill(choice, -1);
+        branch(order, this.points, -1, 0, -1);
+        return result(points);
+    }
+
+    List<PointData> result(List<Point> points) {
+        List<PointData> result = new ArrayList<>(this.points);
+        for (int p = 0; p < this.points; p++) {
+            CandidatePointData point = new CandidatePointData(points.get(p).x, points.get(p).y);
+            point.candidate = choice[p] == -1 ? -1 : choice[p] % candidates;
+            result.add(point);
+        }
+        return result;
+    }
+
+    /**
+     * Most constrained point first: the point with the most overlapping candidates starts,
+     * after that the point with the most overlaps with the points already in the order,
+     * so a point is decided soon after the points that are in its way
+     */
+    int[] searchOrder() {
+        int[] degree = new int[points];
+        for (int c = 0; c < graph.size(); c++) {
+            degree[c / candidates] += graph.degree(c);
+        }
+        int[] linked = new int[points]; //Overlaps with the points already in the order
+        boolean[] done = new boolean[points];
+        //Highest number of overlaps with the order first, then highest degree, then lowest index
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> a[0] != b[0]
+                ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+        for (int p = 0; p < points; p++) {
+            queue.add(new long[] {degree[p], p});
+        }
+        int[] order = new int[points];
+        int size = 0;
+        while (size < points) {
+            long[] top = queue.poll();
+            int p = (int) top[1];
+            if (done[p] || top[0] != ((long) linked[p] << 32) + degree[p]) {
+                continue; //Outdated entry
+            }
+            done[p] = true;
+            order[size++] = p;
+            for (int c = candidates * p; c < candidates * (p + 1); c++) {
+                for (int i = graph.offsets[c]; i < graph.offsets[c + 1]; i++) {
+                    int q = graph.neighbours[i] / candidates;
+                    if (!done[q]) {
+                        linked[q]++;
+                        queue.add(new long[] {((long) linked[q] << 32) + degree[q], q});
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Best labeling of a group of undecided points that all have a live candidate,
+     * their live candidates only overlap live candidates of points in the group
+     * @param group the points
+     * @param lower labelings with at most this many labels are of no use, the search only looks for better ones
+     * @return the number of labels, choice holds the labeling of the group afterwards
+     */
+    int solve(int[] group, int lower) {
+        nodes++;
+        int size = group.length;
+        int[] bestChoice = new int[size];
+        int bestLabels = greedy(group, bestChoice);
+        int cutoff = Math.max(bestLabels, lower);
+        int first = 0;
+        for (int i = 1; i < size; i++) {
+            if (position[group[i]] < position[group[first]]) {
+                first = i;
+            }
+        }
+        int p = group[first];
+        decided[p] = true;
+        int free = freeCandidate(p);
+        //Every live candidate and then no label, or only the free candidate
+        for (int c = candidates * p; c <= candidates * (p + 1) && cutoff < size && !stopped(); c++) {
+            boolean none = c == candidates * (p + 1);
+            if (free != -1 ? c != free : !none && isDisabled(c)) {
+                continue;
+            }
+            int start = trailSize;
+            if (!none) {
+                for (int i = graph.offsets[c]; i < graph.offsets[c + 1]; i++) {
+                    disable(graph.neighbours[i]);
+                }
+            }
+            choice[p] = none ? -1 : c;
+            int labels = branch(group, size, p, none ? 0 : 1, cutoff);
+            if (labels > cutoff) {
+                bestLabels = labels;
+                cutoff = labels;
+                for (int i = 0; i < size; i++) {
+                    bestChoice[i] = choice[group[i]];
+                }
+            }
+            undo(start);
+        }
+        decided[p] = false;
+        for (int i = 0; i < size; i++) {
+            choice[group[i]] = bestChoice[i];
+        }
+        return bestLabels;
+    }
+
+    /**
+     * Splits the undecided points of a group into smaller groups and solves them
+     * @param group holds the points
+     * @param size number of points in the group
+     * @param p the point that was just decided, it is left out, or -1
+     * @param labels number of labels in the group so far
+     * @param toBeat the branch is only of use with more labels than this
+     * @return the number of labels in the group, or at most toBeat if that can not be beaten
+     */
+    int branch(int[] group, int size, int p, int labels, int toBeat) {
+        //The points that still have a live candidate
+        int[] rest = new int[size];
+        int count = 0;
+        int restRound = ++round;
+        for (int i = 0; i < size; i++) {
+            int q = group[i];
+            if (q == p) {
+                continue;
+            }
+            if (hasLiveCandidate(q)) {
+                rest[count++] = q;
+                mark[q] = restRound;
+            } else {
+                choice[q] = -1;
+            }
+        }
+
+        //Split them with a breadth first search over overlapping live candidates
+        int[] groups = new int[count];
+        IntList starts = new IntList();
+        int visitedRound = ++round;
+        int end = 0;
+        for (int i = 0; i < count; i++) {
+            if (mark[rest[i]] == visitedRound) {
+                continue;
+            }
+            starts.add(end);
+            groups[end++] = rest[i];
+            mark[rest[i]] = visitedRound;
+            for (int j = end - 1; j < end; j++) {
+                int q = groups[j];
+                for (int c = candidates * q; c < candidates * (q + 1); c++) {
+                    if (isDisabled(c)) {
+                        continue;
+                    }
+                    for (int k = graph.offsets[c]; k < graph.offsets[c + 1]; k++) {
+                        int d = graph.neighbours[k];
+                        int r = d / candidates;
+                        if (mark[r] == restRound && !isDisabled(d)) {
+                            mark[r] = visitedRound;
+                            groups[end++] = r;
+                        }
+                    }
+                }
+            }
+        }
+        starts.add(end);
+
+        int[] bounds = new int[starts.size() - 1];
+        int bound = 0;
+        for (int g = 0; g < bounds.length; g++) {
+            bounds[g] = bound(groups, starts.get(g), starts.get(g + 1));
+            bound += bounds[g];
+        }
+        for (int g = 0; g < bounds.length && labels + bound > toBeat; g++) {
+            bound -= bounds[g];
+            //Only a group that gets more than this can still make the branch worth it
+            int lower = toBeat - labels - bound;
+            labels += solve(Arrays.copyOfRange(groups, starts.get(g), starts.get(g + 1)), lower);
+        }
+        return labels;
+    }
+
+    /**
+     * Labels a group from first to last in the search order, every point gets the live candidate
+     * that is in the way of the fewest others. The labeling of the greedy solver is used instead
+     * when it is better and still possible.
+     * @param group the points
+     * @param result gets the candidate of every point of the group, -1 if none
+     * @return the number of labels
+     */
+    int greedy(int[] group, int[] result) {
+        int size = group.length;
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) position[group[i]] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int start = trailSize;
+        int labels = 0;
+        for (int i = 0; i < size; i++) {
+            int index = (int) keys[i];
+            int p = group[index];
+            int bestCandidate = -1;
+            int bestCount = Integer.MAX_VALUE;
+            for (int c = candidates * p; c < candidates * (p + 1); c++) {
+                if (isDisabled(c)) {
+                    continue;
+                }
+                int count = 0;
+                for (int k = graph.offsets[c]; k < graph.offsets[c + 1]; k++) {
+                    if (!isDisabled(graph.neighbours[k])) {
+                        count++;
+                    }
+                }
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestCandidate = c;
+                }
+            }
+            result[index] = bestCandidate;
+            if (bestCandidate != -1) {
+                labels++;
+                for (int k = graph.offsets[bestCandidate]; k < graph.offsets[bestCandidate + 1]; k++) {
+                    disable(graph.neighbours[k]);
+                }
+            }
+        }
+        undo(start);
+
+        int greedyLabels = 0;
+        for (int i = 0; i < size; i++) {
+            int c = greedy[group[i]];
+            if (c != -1) {
+                if (isDisabled(c)) {
+                    return labels;
+                }
+                greedyLabels++;
+            }
+        }
+        if (greedyLabels > labels) {
+            for (int i = 0; i < size; i++) {
+                result[i] = greedy[group[i]];
+            }
+            return greedyLabels;
+        }
+        return labels;
+    }
+
+    //A live candidate of p that overlaps no live candidate of an undecided point, or -1
+    int freeCandidate(int p) {
+        for (int c = candidates * p; c < candidates * (p + 1); c++) {
+            if (isDisabled(c)) {
+                continue;
+            }
+            boolean free = true;
+            for (int i = graph.offsets[c]; i < graph.offsets[c + 1] && free; i++) {
+                int d = graph.neighbours[i];
+                free = isDisabled(d) || decided[d / candidates];
+            }
+            if (free) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    boolean hasLiveCandidate(int p) {
+        for (int c = candidates * p; c < candidates * (p + 1); c++) {
+            if (!isDisabled(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Has the search been stopped by the deadline or the node limit
+    boolean stopped() {
+        if (optimal && (nodes > nodeLimit || outOfTime())) {
+            optimal = false;
+        }
+        return !optimal;
+    }
+
+    /**
+     * Upper bound on the number of labels a group of points with live candidates can still get
+     * @param group holds the points
+     * @param from first point of the group
+     * @param to end of the group
+     * @return the bound
+     */
+    int bound(int[] group, int from, int to) {
+        int bound = to - from;
+        for (int g = 0; g < GRIDS; g++) {
+            bound = Math.min(bound, matching(cell[g], group, from, to));
+        }
+        return bound;
+    }
+
+    //Maximum matching between the points and the cells of their live candidates
+    int matching(int[] cell, int[] group, int from, int to) {
+        round++;
+        for (int i = from; i < to; i++) {
+            int p = group[i];
+            for (int c = candidates * p; c < candidates * (p + 1); c++) {
+                if (!isDisabled(c) && stamp[cell[c]] != round) {
+                    stamp[cell[c]] = round;
+                    matchedPoint[cell[c]] = -1;
+                }
+            }
+        }
+
+        //Augmenting paths, the cells used in this round are reset above
+        int matching = 0;
+        for (int i = from; i < to; i++) {
+            round++;
+            if (augment(cell, group[i])) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    //Depth first search for an augmenting path from point p, cells are marked with the current round
+    boolean augment(int[] cell, int p) {
+        for (int c = candidates * p; c < candidates * (p + 1); c++) {
+            if (isDisabled(c)) {
+                continue;
+            }
+            int q = cell[c];
+            if (visited[q] == round) {
+                continue;
+            }
+            visited[q] = round;
+            if (matchedPoint[q] == -1 || augment(cell, matchedPoint[q])) {
+                matchedPoint[q] = p;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isDisabled(int c) {
+        return (disabled[c >>> 6] & (1L << c)) != 0;
+    }
+
+    void disable(int c) {
+        if (!isDisabled(c)) {
+            disabled[c >>> 6] |= 1L << c;
+            trail[trailSize++] = c;
+        }
+    }
+
+    //Enables the candidates disabled since the trail had the given size
+    void undo(int start) {
+        while (trailSize > start) {
+            int c = trail[--trailSize];
+            disabled[c >>> 6] &= ~(1L << c);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the exact 4pos search of BruteForceSolver on pools of one worker up to one worker per
+ * processor and prints the time of every run, all runs have to find the same number of labels.
+ * Usage: java BruteForceBenchmark [runs]
+ */
+public class BruteForceBenchmark {
+
+    static final int WIDTH = 20;
+    static final int HEIGHT = 10;
+    //Points, range and seed of random instances that one worker solves in a few seconds
+    static final int[][] INSTANCES = {{50, 180, 40}, {75, 240, 26}, {100, 290, 13}};
+
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int[] instance : INSTANCES) {
+            int n = instance[0];
+            List<Point> points = DeadlineBenchmark.randomPoints(n, instance[1], new Random(instance[2]));
+            int labels = -1;
+            for (int workers = 1; workers <= processors; workers *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(workers);
+                for (int run = 0; run < runs; run++) {
+                    LabelingContext context = new LabelingContext(WIDTH, HEIGHT, n);
+                    long start = System.nanoTime();
+                    List<PointData> result = new BruteForceSolver(context, pool).getLabeledPoints4pos(points);
+                    long time = (System.nanoTime() - start) / 1000000;
+                    int count = SolverPortfolio.countLabels(result);
+                    if (labels != -1 && count != labels) {
+                        throw new IllegalStateException("Runs found a different number of labels");
+                    }
+                    labels = count;
+                    System.out.println(n + " points, " + workers + " workers: " + time + " ms, " + labels + " labels");
+                }
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -1,241 +1,201 @@
-
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.Stack;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Tries every labeling of the points and keeps the one with the fewest NILs, starting from the
+ * greedy labeling, so it is only for small inputs. BranchAndBoundSolver solves bigger ones.
+ * The candidates are numbered point by point in x order, their overlaps are ConflictBitsets:
+ * choosing a label ORs its row into the bitset of disabled candidates, and the words it changed
+ * are saved per depth and put back afterwards.
+ * The search runs on a ForkJoinPool. A task that sees few queued tasks while it is still high in
+ * the tree hands its branches to new tasks, so idle workers can steal them. Every task has its
+ * own disabled set and saved words, the NILs of the best labeling are shared for cutting branches.
+ */
 public class BruteForceSolver extends LabelSolver {
-    
-    int width;
-    int height;
-    int bestLength;
-    int greedyNils;
-    int nilLabels;
-    List<PointData> pointList;
-    QuadTree QT;
-    Stack<LabelGeneral> disabledLabels;
-    Stack<PointGeneral> labeledPoints;
-    List<PointGeneral> bestSolution;
-    
-    public BruteForceSolver(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.bestLength = 0;
-        this.nilLabels = 0;
-        this.pointList = new ArrayList();
-        this.QT = new QuadTree(width, height);
-        this.disabledLabels = new Stack();
-        this.labeledPoints = new Stack();
-        this.bestSolution = new ArrayList();
+
+    static final int MIN_SPLIT = 8; //Subtrees with fewer points left are never split
+    static final int SURPLUS = 2; //Split only while a worker has at most this many queued tasks more than others can steal
+
+    ForkJoinPool pool;
+    int numberOfPoints; //Number of points in the input
+    int candidates; //Per point
+    int[] order; //Input position of every point, in x order
+    ConflictBitsets conflicts;
+    int[] bestChoice; //Candidate of the point at every depth in the best labeling, -1 for none
+    AtomicInteger bestNils = new AtomicInteger(); //NILs of the best labeling so far, the greedy one at first
+
+    public BruteForceSolver(LabelingContext context) {
+        this(context, ForkJoinPool.commonPool());
     }
-    
-    public void bruteForce(List<PointGeneral> currentSolution, final List<PointGeneral> labelPoints) {
-        if (bestSolution.size() == Globals.numberOfPoints) {
-            return;
-        }
-        
-        for (PointGeneral point : labelPoints) {
-            if (!labeledPoints.contains(point)) {
-                for (LabelGeneral label : point.labels) {
-                    PointGeneral labelPoint = new PointGeneral(point.x, point.y);
-                    int removedLAmount = 0;
-                    boolean labelCheck = false;
-                    if (!disabledLabels.contains(label)) {
-                        labelCheck = true;
-                        if (label.overlappingLabels != null) {
-                            for (LabelGeneral overlap : label.overlappingLabels) {
-                                    disabledLabels.push(overlap);
-                                    removedLAmount++;
-                            }
-                        }
-                        disabledLabels.push(label);
-                        labelPoint.labels.add(label);
-                    } else {
-                        nilLabels++;
-                    }
-                    if (nilLabels >= greedyNils) {
-                        nilLabels--;
-                        return;
-                    }
-                    labeledPoints.push(labelPoint);
-                    currentSolution.add(labelPoint);
-                    if (currentSolution.size() > bestLength) {
-                        bestSolution = new ArrayList(currentSolution);
-                        bestLength = bestSolution.size();
-                    }
-                    bruteForce(currentSolution, labelPoints);
-                    currentSolution.remove(labelPoint);
-                    labeledPoints.pop();
-                    if (labelCheck) {
-                        disabledLabels.pop();
-                        while (removedLAmount > 0) {
-                            disabledLabels.pop();
-                            removedLAmount--;
-                        }
-                    } else {
-                        nilLabels--;
-                    }
-                }
-            }
-        }
+
+    public BruteForceSolver(LabelingContext context, ForkJoinPool pool) {
+        super(context);
+        this.pool = pool;
     }
 
     @Override
     List<PointData> getLabeledPoints2pos(List<Point> points) {
-        
-        List<PointGeneral> labelPoints = new ArrayList();
-        
-        for(Point point : points) {
-            PointGeneral pointData = new PointGeneral(point.x, point.y);
-            pointList.add(pointData);
-            //Create new labels for this point
-            Set<PointGeneral> labelPositions = new HashSet<>(2);
-            labelPositions.add(new PointGeneral(point.x, point.y));
-            labelPositions.add(new PointGeneral(point.x - width, point.y));
-            //Put new labels in datastructures
-            for (PointGeneral pos : labelPositions) {
-                LabelGeneral label;
-                if (pos.labels.isEmpty()) {
-                    label = new LabelGeneral(pointData, pos.x, pos.y);
-                    pointData.labels.add(label);
-                    QT.insert(label);
-                } else {
-                    label = pos.labels.get(0);
-                    label.points.add(pointData);
-                }
-            }
-            labelPoints.add(pointData);
+        return solve(points, 2);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints4pos(List<Point> points) {
+        return solve(points, 4);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints1slider(List<Point> points) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    List<PointData> solve(List<Point> points, int candidates) {
+        this.numberOfPoints = points.size();
+        this.candidates = candidates;
+        int n = numberOfPoints;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) points.get(i).x << 32) | i;
         }
-        
-        //Find overlaps
-        findOverlaps(labelPoints);
-        
-        //Put the greedy choice in bestSolution first
-        LabelSolver greedy = new GreedyGeneral(this.width, this.height);
-        List<PointData> greedySolution = greedy.getLabeledPoints2pos(points);
-        for (PointData point : greedySolution) {
-            if (!point.getLabelInfo().equals("NIL")){
-                this.bestLength++;
-            }
+        Arrays.sort(keys);
+        order = new int[n];
+        List<Point> sorted = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) keys[i];
+            sorted.add(points.get(order[i]));
         }
-        greedyNils = greedySolution.size() - bestLength;
-        
-        //Put the labels into the pointList
-        if (this.bestLength != Globals.numberOfPoints) {
-            bruteForce(new ArrayList(), labelPoints);
-                        
-            if (bestSolution.size() <= bestLength) { //Bruteforce did not find a better than greedy solution
-                return greedySolution;
-            }
-            
-            //Use the bestSolution to get the output
-            for (PointGeneral pointData : bestSolution) {
-                PointData checkPoint = null;
-                for (PointData point : this.pointList) {
-                    if (pointData.x == point.x && pointData.y == point.y) {
-                        checkPoint = point;
-                    }
-                }
-                this.pointList.remove(checkPoint);
-                this.pointList.add(pointData);
+        conflicts = new ConflictBitsets(ConflictGraph.ofCandidates(sorted, candidates, context));
+
+        //Put the greedy choice in bestChoice first
+        int[] greedy = GreedyGeneral.chooseCandidates(context, points, candidates);
+        bestChoice = new int[n];
+        int nils = 0;
+        for (int i = 0; i < n; i++) {
+            int k = greedy[order[i]];
+            bestChoice[i] = k == -1 ? -1 : candidates * i + k;
+            if (k == -1) {
+                nils++;
             }
-            
-            return this.pointList;
-        } else { //The greedy solution is optimal
-            return greedySolution;
         }
+        bestNils.set(nils);
+
+        if (nils > 0) {
+            pool.invoke(new SearchTask(0, conflicts.newSet(), new int[n], 0));
+        }
+
+        PointData[] result = new PointData[n];
+        for (int i = 0; i < n; i++) {
+            CandidatePointData point = new CandidatePointData(points.get(order[i]).x, points.get(order[i]).y);
+            point.candidate = bestChoice[i] == -1 ? -1 : bestChoice[i] - candidates * i;
+            result[order[i]] = point;
+        }
+        return new ArrayList<>(Arrays.asList(result));
     }
 
-    @Override
-    List<PointData> getLabeledPoints4pos(List<Point> points) {
-        
-        List<PointGeneral> labelPoints = new ArrayList();
-        
-        for(Point point : points) {
-            PointGeneral pointData = new PointGeneral(point.x, point.y);
-            pointList.add(pointData);
-            //Create new labels for this point
-            Set<PointGeneral> labelPositions = new HashSet<>(4);
-            labelPositions.add(new PointGeneral(point.x, point.y));
-            labelPositions.add(new PointGeneral(point.x - width, point.y));
-            labelPositions.add(new PointGeneral(point.x, point.y - height));
-            labelPositions.add(new PointGeneral(point.x - width, point.y - height));
-            //Put new labels in datastructures
-            for (PointGeneral pos : labelPositions) {
-                LabelGeneral label;
-                if (pos.labels.isEmpty()) {
-                    label = new LabelGeneral(pointData, pos.x, pos.y);
-                    pointData.labels.add(label);
-                    QT.insert(label);
-                } else {
-                    label = pos.labels.get(0);
-                    label.points.add(pointData);
+    //Keeps a complete labeling if it is still the best
+    synchronized void record(int nils, int[] choice) {
+        if (nils < bestNils.get()) {
+            System.arraycopy(choice, 0, bestChoice, 0, numberOfPoints);
+            bestNils.set(nils);
+        }
+    }
+
+    /**
+     * Searches the subtree below a partial labeling of the points before depth
+     */
+    class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final int start;
+        final long[] disabled; //Candidates that overlap a chosen label
+        final long[] saved; //Words of disabled saved at every depth
+        final int[] choice; //Candidate of the point at every depth, -1 for none
+        int nilLabels;
+        int checks;
+        boolean stopped;
+
+        SearchTask(int start, long[] disabled, int[] choice, int nilLabels) {
+            this.start = start;
+            this.disabled = disabled;
+            this.saved = new long[numberOfPoints * conflicts.words];
+            this.choice = choice;
+            this.nilLabels = nilLabels;
+        }
+
+        @Override
+        protected void compute() {
+            //A small task may end before its first check, so the deadline is also looked at when it starts
+            stopped = deadline.expired();
+            bruteForce(start);
+        }
+
+        /**
+         * Labels the points in x order from depth on, every point gets every candidate that is still possible and NIL
+         * @param depth the number of points labeled
+         */
+        void bruteForce(int depth) {
+            if (outOfTime()) {
+                return;
+            }
+            if (depth == numberOfPoints) {
+                //Only reached with fewer NILs than the best so far
+                record(nilLabels, choice);
+                return;
+            }
+            if (numberOfPoints - depth >= MIN_SPLIT && getSurplusQueuedTaskCount() <= SURPLUS) {
+                split(depth);
+                return;
+            }
+            int at = depth * conflicts.words;
+            for (int c = candidates * depth; c < candidates * (depth + 1) && nilLabels < bestNils.get(); c++) {
+                if (ConflictBitsets.contains(disabled, c)) {
+                    continue;
                 }
+                conflicts.save(disabled, c, saved, at);
+                conflicts.addConflicts(disabled, c);
+                choice[depth] = c;
+                bruteForce(depth + 1);
+                conflicts.restore(disabled, c, saved, at);
             }
-            labelPoints.add(pointData);
-        }
-        
-        //Find overlaps
-        findOverlaps(labelPoints);
-        
-        //Put the greedy choice in bestSolution first
-        LabelSolver greedy = new GreedyGeneral(this.width, this.height);
-        List<PointData> greedySolution = greedy.getLabeledPoints4pos(points);
-        for (PointData point : greedySolution) {
-            if (!point.getLabelInfo().equals("NIL")){
-                this.bestLength++;
+            if (nilLabels + 1 < bestNils.get()) {
+                nilLabels++;
+                choice[depth] = -1;
+                bruteForce(depth + 1);
+                nilLabels--;
             }
         }
-        
-        //Put the labels into the pointList
-        if (this.bestLength != Globals.numberOfPoints) {
-            bruteForce(new ArrayList(), labelPoints);
-            
-            if (bestSolution.size() <= bestLength) { //Bruteforce did not find a better than greedy solution
-                return greedySolution;
-            }
-            
-            //Use the bestSolution to get the output
-            for (PointGeneral pointData : bestSolution) {
-                PointData checkPoint = null;
-                for (PointData point : this.pointList) {
-                    if(pointData.x == point.x && pointData.y == point.y) {
-                        checkPoint = point;
-                    }
+
+        //Gives every branch of the point at depth its own task, with copies of the state
+        void split(int depth) {
+            List<SearchTask> tasks = new ArrayList<>(candidates + 1);
+            for (int c = candidates * depth; c < candidates * (depth + 1) && nilLabels < bestNils.get(); c++) {
+                if (ConflictBitsets.contains(disabled, c)) {
+                    continue;
                 }
-                this.pointList.remove(checkPoint);
-                this.pointList.add(pointData);
+                long[] set = disabled.clone();
+                conflicts.addConflicts(set, c);
+                int[] next = choice.clone();
+                next[depth] = c;
+                tasks.add(new SearchTask(depth + 1, set, next, nilLabels));
+            }
+            if (nilLabels + 1 < bestNils.get()) {
+                int[] next = choice.clone();
+                next[depth] = -1;
+                tasks.add(new SearchTask(depth + 1, disabled.clone(), next, nilLabels + 1));
             }
-            
-            return this.pointList;
-        } else { //The greedy solution is optimal
-            return greedySolution;
+            invokeAll(tasks);
         }
-    }
 
-    @Override
-    List<PointData> getLabeledPoints1slider(List<Point> points) {
-        throw new UnsupportedOperationException("Not supported");
-    }
-    
-    /**
-     * Returns the labels contained in labelMap which collide with the specified label
-     * @param Label the specified label
-     * @param labelMap a set of labels 
-     * @return 
-     */
-    void findOverlaps(List<PointGeneral> labelPoints) {
-        for (PointGeneral pointData : labelPoints) {
-            for(LabelGeneral label : pointData.labels) {
-                //Create interval strictly smaller than this label
-                Interval2D<Integer> rect = new Interval2D<Integer>(
-                        new Interval<Integer>(label.x, label.x + width),
-                        new Interval<Integer>(label.y, label.y + height));
-                label.overlappingLabels = QT.query2D(rect);
-                label.overlappingLabels.remove(label);
+        //Same as LabelSolver.outOfTime, but with a count per task so the workers share nothing
+        boolean outOfTime() {
+            if (!stopped && (++checks & (checkInterval - 1)) == 0) {
+                stopped = deadline.expired();
             }
+            return stopped;
         }
     }
 }
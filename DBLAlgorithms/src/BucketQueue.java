@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+/**
+ * Ints from 0 up to a capacity, each with a key from 0 up to a highest key, in one bucket per key.
+ * The buckets are doubly linked lists, so adding, removing and changing the key of an int take
+ * constant time. An int with the highest key is found by walking down from the highest bucket that
+ * was filled, which is cheap as long as keys change in small steps.
+ */
+class BucketQueue {
+
+    int[] head; //First int of every bucket, -1 if it is empty
+    int[] next; //Next int in the same bucket, -1 at the end
+    int[] previous; //Previous int in the same bucket, -1 at the start
+    int[] key; //Key of every int, -1 if it is not in the queue
+    int top; //No bucket above this one holds an int
+
+    public BucketQueue(int capacity, int highestKey) {
+        head = new int[highestKey + 1];
+        next = new int[capacity];
+        previous = new int[capacity];
+        key = new int[capacity];
+        Arrays.fill(head, -1);
+        Arrays.fill(key, -1);
+    }
+
+    //Adds the int with the key, or moves it to the key if it is already in the queue
+    void add(int value, int k) {
+        if (key[value] == k) {
+            return;
+        }
+        remove(value);
+        key[value] = k;
+        previous[value] = -1;
+        next[value] = head[k];
+        if (head[k] != -1) {
+            previous[head[k]] = value;
+        }
+        head[k] = value;
+        top = Math.max(top, k);
+    }
+
+    void remove(int value) {
+        int k = key[value];
+        if (k == -1) {
+            return;
+        }
+        if (previous[value] != -1) {
+            next[previous[value]] = next[value];
+        } else {
+            head[k] = next[value];
+        }
+        if (next[value] != -1) {
+            previous[next[value]] = previous[value];
+        }
+        key[value] = -1;
+    }
+
+    boolean contains(int value) {
+        return key[value] != -1;
+    }
+
+    //An int with the highest key, or -1 if the queue is empty
+    int max() {
+        while (top > 0 && head[top] == -1) {
+            top--;
+        }
+        return head[top];
+    }
+}
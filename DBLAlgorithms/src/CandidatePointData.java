@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Result for a point in the 2pos and 4pos models, the label is one of the fixed candidates
+ * of the point: 0 is NE, 1 is NW, 2 is SE and 3 is SW, -1 is no label
+ */
+class CandidatePointData extends PointData {
+
+    static final String[] INFO = {"NE", "NW", "SE", "SW"};
+    static final byte[][] INFO_BYTES = {{'N', 'E'}, {'N', 'W'}, {'S', 'E'}, {'S', 'W'}};
+    static final byte[] NIL = {'N', 'I', 'L'};
+
+    int candidate;
+
+    public CandidatePointData(int x, int y) {
+        super(x, y);
+        this.candidate = -1;
+    }
+
+    //Left of candidate k of a point at x
+    static int labelX(int x, int k, int width) {
+        return (k & 1) == 0 ? x : x - width;
+    }
+
+    //Bottom of candidate k of a point at y
+    static int labelY(int y, int k, int height) {
+        return (k & 2) == 0 ? y : y - height;
+    }
+
+    /**
+     * Fills in the corners of all candidates, candidate k of point p gets id candidates * p + k
+     * @param points the points
+     * @param candidates 2 or 4 per point
+     * @param xs left of every candidate
+     * @param ys bottom of every candidate
+     */
+    static void candidateLabels(List<Point> points, int candidates, int width, int height, int[] xs, int[] ys) {
+        for (int p = 0; p < points.size(); p++) {
+            Point point = points.get(p);
+            for (int k = 0; k < candidates; k++) {
+                xs[candidates * p + k] = labelX(point.x, k, width);
+                ys[candidates * p + k] = labelY(point.y, k, height);
+            }
+        }
+    }
+
+    @Override
+    String getLabelInfo() {
+        if (candidate == -1) {
+            return "NIL";
+        }
+        return INFO[candidate];
+    }
+
+    @Override
+    boolean hasLabel() {
+        return candidate != -1;
+    }
+
+    @Override
+    void writeLabelInfo(OutputWriter out) throws IOException {
+        out.writeBytes(candidate == -1 ? NIL : INFO_BYTES[candidate]);
+    }
+}
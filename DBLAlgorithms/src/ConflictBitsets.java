@@ -0,0 +1,72 @@
+/**
+ * Overlaps between the candidates of a small component as rows of bits: bit d of row c is set
+ * when candidates c and d overlap. A set of candidates is a long[] of words, so disabling every
+ * candidate that overlaps c is a word-wise OR with row c. When the candidates are numbered point
+ * by point in x order the bits of a row lie close to its own candidate, only the words from
+ * first[c] up to last[c] are used and saved.
+ */
+class ConflictBitsets {
+
+    final int size; //Number of candidates
+    final int words; //Words per row
+    final long[] rows; //Row c starts at c * words
+    final int[] first; //First word of every row that can have bits
+    final int[] last; //Last word of every row that can have bits
+
+    /**
+     * @param graph overlaps between the candidates
+     */
+    ConflictBitsets(ConflictGraph graph) {
+        size = graph.size();
+        words = Math.max((size + 63) >>> 6, 1);
+        rows = new long[size * words];
+        first = new int[size];
+        last = new int[size];
+        for (int c = 0; c < size; c++) {
+            //An empty row gets the word of its own candidate, so the ranges are never empty
+            first[c] = c >>> 6;
+            last[c] = c >>> 6;
+            for (int i = graph.offsets[c]; i < graph.offsets[c + 1]; i++) {
+                int d = graph.neighbours[i];
+                rows[c * words + (d >>> 6)] |= 1L << d;
+                first[c] = Math.min(first[c], d >>> 6);
+                last[c] = Math.max(last[c], d >>> 6);
+            }
+        }
+    }
+
+    long[] newSet() {
+        return new long[words];
+    }
+
+    static boolean contains(long[] set, int c) {
+        return (set[c >>> 6] & (1L << c)) != 0;
+    }
+
+    //Adds every candidate that overlaps c to the set
+    void addConflicts(long[] set, int c) {
+        int row = c * words;
+        for (int w = first[c]; w <= last[c]; w++) {
+            set[w] |= rows[row + w];
+        }
+    }
+
+    /**
+     * Copies the words of the set that addConflicts(set, c) can change
+     * @param set the set
+     * @param c the candidate
+     * @param saved gets the words
+     * @param at position in saved to start at
+     * @return the number of words copied
+     */
+    int save(long[] set, int c, long[] saved, int at) {
+        int count = last[c] - first[c] + 1;
+        System.arraycopy(set, first[c], saved, at, count);
+        return count;
+    }
+
+    //Puts back the words saved with save for the same candidate
+    void restore(long[] set, int c, long[] saved, int at) {
+        System.arraycopy(saved, at, set, first[c], last[c] - first[c] + 1);
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Overlap graph of a set of labels of the same size, as compressed adjacency arrays:
+ * the labels overlapping label i are neighbours[offsets[i]] up to neighbours[offsets[i + 1]].
+ * A label is not its own neighbour.
+ */
+class ConflictGraph {
+
+    final int[] offsets;
+    final int[] neighbours;
+
+    ConflictGraph(int[] offsets, int[] neighbours) {
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+    }
+
+    int size() {
+        return offsets.length - 1;
+    }
+
+    int degree(int label) {
+        return offsets[label + 1] - offsets[label];
+    }
+
+    /**
+     * Builds the overlap graph with the method selected by the index of the context,
+     * the sweep line or one of the spatial indexes
+     * @param labels the labels, the id of a label is its position in this list
+     * @param context the run, gives the size of the labels and the index
+     * @return the overlap graph
+     */
+    static ConflictGraph build(List<? extends Label> labels, LabelingContext context) {
+        int[] xs = new int[labels.size()];
+        int[] ys = new int[labels.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = labels.get(i).x;
+            ys[i] = labels.get(i).y;
+        }
+        return build(xs, ys, context);
+    }
+
+    /**
+     * Builds the overlap graph with the method selected by the index of the context,
+     * the sweep line or one of the spatial indexes
+     * @param xs left of every label, the id of a label is its position in this array
+     * @param ys bottom of every label
+     * @param context the run, gives the size of the labels and the index
+     * @return the overlap graph
+     */
+    static ConflictGraph build(int[] xs, int[] ys, LabelingContext context) {
+        if (context.index.equals("sweep")) {
+            return sweep(xs, ys, context.width, context.height);
+        }
+        return fromIndex(SpatialIndex.create(xs, ys, context), xs, ys);
+    }
+
+    /**
+     * Builds the overlap graph of the fixed candidates of the points
+     * @param points the points
+     * @param candidates 2 for the 2pos model, 4 for the 4pos model
+     * @param context the run
+     * @return the overlap graph, candidate k of point p has id candidates * p + k
+     */
+    static ConflictGraph ofCandidates(List<Point> points, int candidates, LabelingContext context) {
+        int[] xs = new int[candidates * points.size()];
+        int[] ys = new int[candidates * points.size()];
+        CandidatePointData.candidateLabels(points, candidates, context.width, context.height, xs, ys);
+        return build(xs, ys, context);
+    }
+
+    /**
+     * Builds the overlap graph with a sweep line. The labels are cut into horizontal
+     * strips of one label height and sorted on x within a strip, so a label can only
+     * overlap labels less than a width away in its own strip or the next one.
+     * Runs in O(n log n + k) where k is the number of such pairs.
+     * @param xs left of every label
+     * @param ys bottom of every label
+     * @param width width of the labels
+     * @param height height of the labels
+     * @return the overlap graph
+     */
+    static ConflictGraph sweep(int[] xs, int[] ys, int width, int height) {
+        int n = xs.length;
+        if (width <= 0 || height <= 0) {
+            return new ConflictGraph(new int[n + 1], new int[0]);
+        }
+        int minY = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minY = Math.min(minY, ys[i]);
+        }
+
+        //Sort on x, then on strip keeping the x order
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) xs[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] byX = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            byX[rank] = (int) keys[rank];
+            long strip = ((long) ys[byX[rank]] - minY) / height;
+            keys[rank] = (strip << 32) | rank;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[n];
+        int[] strips = new int[n];
+        for (int k = 0; k < n; k++) {
+            order[k] = byX[(int) keys[k]];
+            strips[k] = (int) (keys[k] >>> 32);
+        }
+
+        //Walk every strip together with the strip above it
+        IntList pairs = new IntList();
+        int start = 0;
+        while (start < n) {
+            int end = start;
+            while (end < n && strips[end] == strips[start]) {
+                end++;
+            }
+            int next = end;
+            while (next < n && strips[next] == strips[start] + 1) {
+                next++;
+            }
+            int window = end;
+            for (int k = start; k < end; k++) {
+                int a = order[k];
+                //Same strip, so the labels are less than a height apart
+                for (int l = k + 1; l < end && xs[order[l]] - xs[a] < width; l++) {
+                    pairs.add(a);
+                    pairs.add(order[l]);
+                }
+                //Strip above
+                while (window < next && xs[order[window]] <= xs[a] - width) {
+                    window++;
+                }
+                for (int l = window; l < next && xs[order[l]] < xs[a] + width; l++) {
+                    int b = order[l];
+                    if (ys[b] - ys[a] < height) {
+                        pairs.add(a);
+                        pairs.add(b);
+                    }
+                }
+            }
+            start = end;
+        }
+        return fromPairs(n, pairs);
+    }
+
+    /**
+     * Builds the overlap graph by querying a spatial index for every label
+     * @param index index over the labels
+     * @param xs left of every label
+     * @param ys bottom of every label
+     * @return the overlap graph
+     */
+    static ConflictGraph fromIndex(SpatialIndex index, int[] xs, int[] ys) {
+        int n = xs.length;
+        int[] offsets = new int[n + 1];
+        IntList neighbours = new IntList(4 * n);
+        IntList result = new IntList();
+        for (int i = 0; i < n; i++) {
+            result.clear();
+            index.query(xs[i], ys[i], result);
+            for (int j = 0; j < result.size(); j++) {
+                if (result.get(j) != i) {
+                    neighbours.add(result.get(j));
+                }
+            }
+            offsets[i + 1] = neighbours.size();
+        }
+        return new ConflictGraph(offsets, Arrays.copyOf(neighbours.values, neighbours.size()));
+    }
+
+    //Builds the graph from a list of edges stored as consecutive pairs
+    private static ConflictGraph fromPairs(int n, IntList pairs) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < pairs.size(); i++) {
+            offsets[pairs.get(i) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] neighbours = new int[pairs.size()];
+        for (int i = 0; i < pairs.size(); i += 2) {
+            int a = pairs.get(i);
+            int b = pairs.get(i + 1);
+            neighbours[next[a]++] = b;
+            neighbours[next[b]++] = a;
+        }
+        return new ConflictGraph(offsets, neighbours);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Lowers the temperature of ForceDirectedSimulatedAnnealing at the end of every stage.
+ * A schedule keeps state of one run, so every run needs a new one.
+ */
+interface CoolingSchedule {
+
+    /**
+     * Called once before the first stage
+     * @param temperature the temperature of the first stage
+     */
+    void start(double temperature);
+
+    /**
+     * @param temperature the temperature of the stage that ended
+     * @param taken the number of moves taken in the stage
+     * @param moves the number of moves tried in the stage
+     * @return the temperature of the next stage
+     */
+    double next(double temperature, int taken, int moves);
+
+    /**
+     * Builds a schedule by name
+     * @param name geometric, reheat or lundymees
+     * @param stages the number of stages after which the temperature is below 1 when no reheat happens
+     * @return the schedule
+     */
+    static CoolingSchedule create(String name, int stages) {
+        switch (name) {
+            case "geometric":
+                return new Geometric(stages);
+            case "reheat":
+                return new AdaptiveReheat(stages);
+            case "lundymees":
+                return new LundyMees(stages);
+            default:
+                throw new IllegalArgumentException("Unknown cooling schedule: " + name);
+        }
+    }
+
+    /**
+     * Multiplies the temperature by the same rate every stage
+     */
+    class Geometric implements CoolingSchedule {
+
+        final int stages;
+        double rate;
+
+        Geometric(int stages) {
+            this.stages = stages;
+        }
+
+        @Override
+        public void start(double temperature) {
+            rate = Math.pow(1. / temperature, 1. / stages);
+        }
+
+        @Override
+        public double next(double temperature, int taken, int moves) {
+            return temperature * rate;
+        }
+    }
+
+    /**
+     * Geometric, but a stage in which almost no move was taken is stuck in a local minimum:
+     * the temperature then goes back up by a few stages, never above the start
+     */
+    class AdaptiveReheat extends Geometric {
+
+        static final double MIN_ACCEPTANCE = 0.01; //Part of the moves below which a stage is stuck
+        static final int REHEAT_STAGES = 3;
+
+        double highest;
+
+        AdaptiveReheat(int stages) {
+            super(stages);
+        }
+
+        @Override
+        public void start(double temperature) {
+            super.start(temperature);
+            highest = temperature;
+        }
+
+        @Override
+        public double next(double temperature, int taken, int moves) {
+            if (taken < MIN_ACCEPTANCE * moves) {
+                return Math.min(highest, temperature / Math.pow(rate, REHEAT_STAGES));
+            }
+            return temperature * rate;
+        }
+    }
+
+    /**
+     * Lundy and Mees: T / (1 + beta * T), which cools fast while it is hot and slowly once it is cold
+     */
+    class LundyMees implements CoolingSchedule {
+
+        final int stages;
+        double beta;
+
+        LundyMees(int stages) {
+            this.stages = stages;
+        }
+
+        @Override
+        public void start(double temperature) {
+            //1 / T grows by beta every stage
+            beta = Math.max(0, (1 - 1 / temperature) / stages);
+        }
+
+        @Override
+        public double next(double temperature, int taken, int moves) {
+            return temperature / (1 + beta * temperature);
+        }
+    }
+}
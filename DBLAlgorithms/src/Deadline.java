@@ -0,0 +1,36 @@
+/**
+ * Moment after which a solver should stop and return the best labeling it has so far,
+ * it can also be cancelled before that from another thread.
+ * Reading the clock is cheap but not free, so the main loops of the solvers only check
+ * the deadline once every few iterations, see LabelSolver.outOfTime.
+ */
+class Deadline {
+
+    static final int CHECK_INTERVAL = 1024; //Default of LabelSolver.checkInterval
+
+    private final boolean bounded;
+    private final long end; //System.nanoTime at the deadline
+    private volatile boolean cancelled;
+
+    private Deadline(boolean bounded, long end) {
+        this.bounded = bounded;
+        this.end = end;
+    }
+
+    //Deadline that only passes when it is cancelled
+    static Deadline none() {
+        return new Deadline(false, 0);
+    }
+
+    static Deadline after(long millis) {
+        return new Deadline(true, System.nanoTime() + millis * 1000000L);
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean expired() {
+        return cancelled || (bounded && System.nanoTime() - end >= 0);
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Runs every solver on an instance that it can not finish within the deadline and checks that it
+ * still returns a labeling without overlaps no later than SLA milliseconds after the deadline.
+ * Exits with status 1 when a solver misses that.
+ * Building the conflict graph and the other set up is not interrupted, so the polynomial solvers
+ * get instances where the set up fits well within the default deadline.
+ * Usage: java DeadlineBenchmark [deadline in ms]
+ */
+public class DeadlineBenchmark {
+
+    static final long SLA = 100; //Milliseconds a solver can take after its deadline
+    static final int WIDTH = 20;
+    static final int HEIGHT = 10;
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        boolean missed = false;
+        missed |= run("BruteForceSolver", "2pos", 40, 60, millis);
+        missed |= run("BruteForceSolver", "4pos", 40, 60, millis);
+        missed |= run("BranchAndBoundSolver", "4pos", 200, 120, millis);
+        missed |= run("MaxSatSolver", "4pos", 200, 120, millis);
+        missed |= run("GreedyGeneral", "4pos", 50000, 4000, millis);
+        missed |= run("TwoSatSolver", "2pos", 20000, 1200, millis);
+        missed |= run("DecompositionSolver", "4pos", 50000, 4000, millis);
+        missed |= run("ForceDirectedSimulatedAnnealing", "1slider", 100, 80, millis);
+        missed |= run("ForceDirectedSimulatedAnnealing", "1slider", 2000, 400, millis);
+        missed |= run("ParallelTempering", "1slider", 2000, 400, millis);
+        if (missed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a solver with a deadline and prints how long it took
+     * @return true if the solver missed the SLA or returned overlapping labels
+     */
+    static boolean run(String name, String model, int n, int range, long millis) {
+        List<Point> points = randomPoints(n, range, new Random(n));
+        LabelingContext context = new LabelingContext(WIDTH, HEIGHT, n, new Random(n),
+                LabelingContext.DEFAULT_INDEX, LabelingContext.DEFAULT_EXACT_LIMIT, Deadline.after(millis));
+        long start = System.nanoTime();
+        List<PointData> result = SolverPortfolio.run(solver(name, context), model, points);
+        long time = (System.nanoTime() - start) / 1000000;
+        boolean feasible = new SolverPortfolio(context, millis).isFeasible(model, result);
+        boolean missed = !feasible || result.size() != n || time > millis + SLA;
+        System.out.println(name + " " + model + " n=" + n + ": " + time + " ms, "
+                + SolverPortfolio.countLabels(result) + " labels" + (feasible ? "" : ", overlapping")
+                + (missed ? ", MISSED" : ""));
+        return missed;
+    }
+
+    static LabelSolver solver(String name, LabelingContext context) {
+        switch (name) {
+            case "BruteForceSolver":
+                return new BruteForceSolver(context);
+            case "BranchAndBoundSolver":
+                return new BranchAndBoundSolver(context);
+            case "MaxSatSolver":
+                return new MaxSatSolver(context);
+            case "GreedyGeneral":
+                return new GreedyGeneral(context);
+            case "TwoSatSolver":
+                return new TwoSatSolver(context);
+            case "DecompositionSolver":
+                return new DecompositionSolver(context);
+            case "ForceDirectedSimulatedAnnealing":
+                return new ForceDirectedSimulatedAnnealing(context);
+            case "ParallelTempering":
+                return new ParallelTempering(context, 4);
+            default:
+                throw new IllegalArgumentException("Unknown solver: " + name);
+        }
+    }
+
+    //n different points in a range by range square
+    static List<Point> randomPoints(int n, int range, Random random) {
+        Set<Point> points = new LinkedHashSet<>(2 * n);
+        while (points.size() < n) {
+            points.add(new Point(random.nextInt(range), random.nextInt(range)));
+        }
+        return new ArrayList<>(points);
+    }
+}
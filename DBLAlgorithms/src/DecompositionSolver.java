@@ -0,0 +1,246 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the input into components of points whose labels can overlap and solves
+ * every component on its own, in parallel on a ForkJoinPool.
+ * Components of at most context.exactLimit points go to the branch and bound solver, bigger ones
+ * to the 2-SAT solver in the 2pos model and to the greedy solver otherwise.
+ * The 1slider model has no exact solver, so every component goes to the sliding greedy.
+ */
+class DecompositionSolver extends LabelSolver {
+
+    static final int BATCH_POINTS = 256; //Components are solved in batches of about this many points
+    static final long COMPONENT_NODES = 5000; //Search nodes of the branch and bound solver per component
+
+    ForkJoinPool pool;
+
+    public DecompositionSolver(LabelingContext context) {
+        this(context, ForkJoinPool.commonPool());
+    }
+
+    public DecompositionSolver(LabelingContext context, ForkJoinPool pool) {
+        super(context);
+        this.pool = pool;
+    }
+
+    @Override
+    List<PointData> getLabeledPoints2pos(List<Point> points) {
+        return solve(points, candidateComponents(points, 2), "2pos");
+    }
+
+    @Override
+    List<PointData> getLabeledPoints4pos(List<Point> points) {
+        return solve(points, candidateComponents(points, 4), "4pos");
+    }
+
+    @Override
+    List<PointData> getLabeledPoints1slider(List<Point> points) {
+        //A sliding label can be anywhere from x - width to x + width, so two points
+        //can only have overlapping labels if they are less than twice the width apart
+        int n = points.size();
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int p = 0; p < n; p++) {
+            xs[p] = points.get(p).x;
+            ys[p] = points.get(p).y;
+        }
+        int[] parent = newUnionFind(n);
+        if (width > 0 && height > 0) {
+            GridIndex grid = new GridIndex(xs, ys, 2 * width, height);
+            IntList result = new IntList();
+            for (int p = 0; p < n; p++) {
+                result.clear();
+                grid.query(xs[p], ys[p], result);
+                for (int i = 0; i < result.size(); i++) {
+                    union(parent, p, result.get(i));
+                }
+            }
+        }
+        return solve(points, parent, "1slider");
+    }
+
+    //Union-find over the points, joining the points of every pair of overlapping candidates
+    int[] candidateComponents(List<Point> points, int candidates) {
+        ConflictGraph graph = ConflictGraph.ofCandidates(points, candidates, context);
+        int[] parent = newUnionFind(points.size());
+        for (int c = 0; c < graph.size(); c++) {
+            for (int i = graph.offsets[c]; i < graph.offsets[c + 1]; i++) {
+                union(parent, c / candidates, graph.neighbours[i] / candidates);
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * Solves every component and puts the results back in the order of the input
+     * @param points the input
+     * @param parent union-find over the points
+     * @param model the placement model
+     * @return the labeled points
+     */
+    List<PointData> solve(List<Point> points, int[] parent, String model) {
+        int n = points.size();
+
+        //Counting sort of the points on their component, biggest components first
+        int[] size = new int[n];
+        for (int p = 0; p < n; p++) {
+            size[find(parent, p)]++;
+        }
+        long[] roots = new long[n];
+        int count = 0;
+        for (int p = 0; p < n; p++) {
+            if (size[p] > 0) {
+                roots[count++] = ((long) -size[p] << 32) | p;
+            }
+        }
+        roots = Arrays.copyOf(roots, count);
+        Arrays.sort(roots);
+        int[] start = new int[count + 1];
+        int[] slot = new int[n]; //Next free position of every component, by root
+        for (int c = 0; c < count; c++) {
+            int root = (int) roots[c];
+            start[c + 1] = start[c] + size[root];
+            slot[root] = start[c];
+        }
+        int[] members = new int[n]; //Input positions of the points, component by component
+        for (int p = 0; p < n; p++) {
+            members[slot[find(parent, p)]++] = p;
+        }
+
+        //The workers can not share the Random of the context, so every component gets its seed here
+        long[] seeds = new long[count];
+        for (int c = 0; c < count; c++) {
+            seeds[c] = context.random.nextLong();
+        }
+
+        PointData[] result = new PointData[n];
+        pool.invoke(new SolveTask(model, points, members, start, seeds, 0, count, result));
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    //Solves a single component with the solver that fits its size
+    List<PointData> solveComponent(String model, List<Point> component, long seed) {
+        LabelSolver solver;
+        if (component.size() > 1 && deadline.expired()) {
+            //Out of time, no labels is always possible
+            List<PointData> result = new ArrayList<>(component.size());
+            for (Point point : component) {
+                result.add(model.equals("1slider")
+                        ? new SliderPointData(point.x, point.y, width)
+                        : new CandidatePointData(point.x, point.y));
+            }
+            return result;
+        }
+        LabelingContext part = context.forPoints(component.size(), seed);
+        if (model.equals("1slider")) {
+            return new GreedyGeneral(part).getLabeledPoints1slider(component);
+        }
+        if (component.size() == 1) {
+            //Nothing is in the way of a lonely point
+            CandidatePointData point = new CandidatePointData(component.get(0).x, component.get(0).y);
+            point.candidate = 0;
+            List<PointData> result = new ArrayList<>(1);
+            result.add(point);
+            return result;
+        }
+        if (component.size() <= context.exactLimit) {
+            BranchAndBoundSolver exact = new BranchAndBoundSolver(part);
+            exact.nodeLimit = COMPONENT_NODES;
+            solver = exact;
+        } else if (model.equals("2pos")) {
+            solver = new TwoSatSolver(part);
+        } else {
+            solver = new GreedyGeneral(part);
+        }
+        if (model.equals("2pos")) {
+            return solver.getLabeledPoints2pos(component);
+        } else {
+            return solver.getLabeledPoints4pos(component);
+        }
+    }
+
+    /**
+     * Solves the components first up to last, splitting the range in two as long as
+     * it holds more than one component and more than BATCH_POINTS points
+     */
+    class SolveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        final String model;
+        final List<Point> points;
+        final int[] members;
+        final int[] start;
+        final long[] seeds; //Seed of every component
+        final int first;
+        final int last;
+        final PointData[] result; //Solved points by their input position
+
+        SolveTask(String model, List<Point> points, int[] members, int[] start, long[] seeds, int first, int last,
+                PointData[] result) {
+            this.model = model;
+            this.points = points;
+            this.members = members;
+            this.start = start;
+            this.seeds = seeds;
+            this.first = first;
+            this.last = last;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1 && start[last] - start[first] > BATCH_POINTS) {
+                int middle = (first + last) / 2;
+                invokeAll(new SolveTask(model, points, members, start, seeds, first, middle, result),
+                        new SolveTask(model, points, members, start, seeds, middle, last, result));
+                return;
+            }
+            for (int c = first; c < last; c++) {
+                List<Point> component = new ArrayList<>(start[c + 1] - start[c]);
+                for (int i = start[c]; i < start[c + 1]; i++) {
+                    component.add(points.get(members[i]));
+                }
+                //The solvers return the points in the order they were given
+                List<PointData> solved = solveComponent(model, component, seeds[c]);
+                for (int i = 0; i < solved.size(); i++) {
+                    result[members[start[c] + i]] = solved.get(i);
+                }
+            }
+        }
+    }
+
+    static int[] newUnionFind(int n) {
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        return parent;
+    }
+
+    //Root of the set of i, halving the path on the way
+    static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    static void union(int[] parent, int a, int b) {
+        a = find(parent, a);
+        b = find(parent, b);
+        if (a != b) {
+            //Attach the higher index to the lower one, so the roots stay deterministic
+            if (a < b) {
+                parent[b] = a;
+            } else {
+                parent[a] = b;
+            }
+        }
+    }
+}
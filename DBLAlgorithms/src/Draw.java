@@ -93,7 +93,7 @@ class Draw extends JPanel {
         Graphics2D g2d = (Graphics2D) g;
         // Scaling factor: (0.06 for optimal view of entire 10.000x10.000 matrix
         // Translation: offset from origin
-        g2d.drawString("Amount of points: " + LabelPlacer.numberOfPoints + "  Amount of labels placed: " + Globals.numberOfLabels, 350, 15);
+        g2d.drawString("Amount of points: " + LabelPlacer.numberOfPoints + "  Amount of labels placed: " + LabelPlacer.numberOfLabels, 350, 15);
         AffineTransform t = AffineTransform.getTranslateInstance(0, getHeight());
         t.scale(1, -1);
         g2d.setTransform(t);
@@ -150,9 +150,9 @@ class Draw extends JPanel {
             } else {
                 //Draw Label for slider model
                 double value = Double.parseDouble(info);
-                value *= Globals.width;
+                value *= LabelPlacer.width;
                 g2d.setColor(Color.GREEN);
-                g2d.fillRect(point.x - Globals.width + (int)value, point.y, Globals.width, Globals.height);
+                g2d.fillRect(point.x - LabelPlacer.width + (int)value, point.y, LabelPlacer.width, LabelPlacer.height);
             }
         }
        
@@ -0,0 +1,43 @@
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the time and the memory allocated per move of the force directed annealing: a random
+ * label goes to a random position and updateForces updates it and all its neighbours.
+ * The allocation is read from the ThreadMXBean of the JVM, it should stay at zero bytes per move.
+ * Usage: java ForceBenchmark [moves]
+ */
+public class ForceBenchmark {
+
+    static final int RUNS = 5;
+    static final int WIDTH = 20;
+    static final int HEIGHT = 10;
+
+    public static void main(String[] args) {
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int n : new int[] {1000, 10000}) {
+            //About ten neighbours per label
+            int range = (int) Math.sqrt(n * 2.0 * WIDTH * HEIGHT);
+            List<Point> points = DeadlineBenchmark.randomPoints(n, range, new Random(n));
+            LabelingContext context = new LabelingContext(WIDTH, HEIGHT, n);
+            ForceDirectedSimulatedAnnealing solver = new ForceDirectedSimulatedAnnealing(context);
+            List<ForceLabel> labels = solver.placeLabels(points);
+            SplittableRandom random = new SplittableRandom(n);
+            for (int run = 0; run < RUNS; run++) {
+                long bytes = bean.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                for (int move = 0; move < moves; move++) {
+                    solver.randomPlace(labels.get(random.nextInt(n)));
+                }
+                long time = System.nanoTime() - start;
+                bytes = bean.getThreadAllocatedBytes(thread) - bytes;
+                System.out.println(n + " labels: " + time / moves + " ns and " + (double) bytes / moves
+                        + " bytes per move");
+            }
+        }
+    }
+}
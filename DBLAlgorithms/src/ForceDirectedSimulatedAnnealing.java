@@ -1,12 +1,8 @@
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
 
 
 public class ForceDirectedSimulatedAnnealing extends LabelSolver {
@@ -19,8 +15,12 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
     final double DEFAULT_FORCE_FAKT_EPS = 0.5;
     final double DEFAULT_OVERLAPPING_PENALTY = 3 * (1 / (DEFAULT_FORCE_FAKT_EPS * DEFAULT_FORCE_FAKT_EPS));
 
+    static final int STAGES = 15; //The temperature becomes < 1 after this many stages, unless the schedule reheats
+
     double temperature = 0;
-    double cooling_rate = 0;
+    double acceptedOverlap = 0.5; //Part of the average label size a first stage overlap may take
+    CoolingSchedule schedule;
+    MoveGenerator moves;
     int    moves_per_stage = 0;
 
     int   nRejected = 0;
@@ -28,92 +28,83 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
     int   nUnsignificant = 0;
     int   nStages = 0;
     int   nIterations = 0;
+    int   nRemoved = 0;
+    boolean finished = false; //No label overlaps
 
-    HashSet<ForceLabel> obstructed = null;
+    IntSet obstructed = null; //Ids of the labels that overlap another label or can still slide
+    BucketQueue byOverlaps = null; //The obstructed labels on their number of overlaps
+    SplittableRandom random; //Source of randomness of the run, seeded from the context
 
     double overallForce = 0.0;
     
     List<PointData> pointList;
     
     SliderQuadTree QT;
+    GridIndex grid;
+    List<ForceLabel> labels;
      
-    public ForceDirectedSimulatedAnnealing(int width, int height) {
+    public ForceDirectedSimulatedAnnealing(LabelingContext context) {
+        this(context, new CoolingSchedule.Geometric(STAGES), MoveGenerator.EQUILIBRIUM_SLIDE);
+    }
+    
+    public ForceDirectedSimulatedAnnealing(LabelingContext context, CoolingSchedule schedule, MoveGenerator moves) {
+        super(context);
+        this.schedule = schedule;
+        this.moves = moves;
         pointList = new ArrayList<>();
-        QT = new SliderQuadTree();
+        QT = new SliderQuadTree(context);
+        checkInterval = 16; //A move updates the forces of all neighbours
+        random = new SplittableRandom(context.random.nextLong());
     }
 
     @Override
     List<PointData> getLabeledPoints1slider(List<Point> points) {
-        if (Globals.numberOfPoints > 100)
-            return FDSA10000(points);
-        else
-            return FDSA100(points);
-            
+        return anneal(points);
+    }
+    
+    /**
+     * Moves obstructed labels until none is left. Every stage ends with lower temperature, when
+     * it took no significant move the obstructed label with the most overlaps is removed.
+     * @param points the input
+     * @return the points, a point without label has none
+     */
+    List<PointData> anneal(List<Point> points) {
+        start(points);
+        run(MAX_ITERATIONS);
+        return finish();
     }
     
-    List<PointData> FDSA100(List<Point> points) {
+    //Places the labels and sets the first temperature
+    void start(List<Point> points) {
         
-        ArrayList<ForceLabel> labelList = new ArrayList<ForceLabel>();
-        obstructed = new HashSet<ForceLabel>();
-        //Place labels on random position
-        for (Point point : points) {
-            double shift = Math.random();
-            //System.out.println(shift);
-            int xPos = (int)(shift * (double)Globals.width);
-            ForceLabel label = new ForceLabel(point.x - Globals.width + xPos, point.y);
-            ForcePointData pointData = new ForcePointData(point.x, point.y, label);
-            label.point = pointData;
-            pointList.add(pointData);
-            labelList.add(label);
-            QT.insert(label);
-        }
-        //Find neighbour
-        for (ForceLabel label : labelList){
-            List<ForceLabel> neighbours = QT.findNeighbours(label);
-            for(ForceLabel otherLabel : neighbours){
-                double force = 0.0;
-                if((label.x + Globals.width) > otherLabel.x && (otherLabel.x + Globals.width) > label.x){ //Are the labels overlapping?
-                    if(label.x > otherLabel.x){ //other label is left from this label
-                        force = DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + Globals.width) - label.x) + DEFAULT_OVERLAPPING_PENALTY;
-                    } else if(label.x < otherLabel.x){ //other label is right from this label
-                        force = -DEFAULT_FORCE_FAKT_OVERLAPPING * ((label.x + Globals.width) - otherLabel.x) - DEFAULT_OVERLAPPING_PENALTY;
-                    } else { //Labels are on the same position
-                        force = -otherLabel.neighbours.getOrDefault(label, DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + Globals.width) - label.x) + DEFAULT_OVERLAPPING_PENALTY);
-                    }
-                }
-                label.totalForce += force;
-                label.neighbours.put(otherLabel, force);
-                otherLabel.neighbours.put(label, -force);
-            }
-            overallForce += Math.abs(label.totalForce);
-        }
+        List<ForceLabel> labelList = placeLabels(points);
         
         //init temperature && initialize set of obstructed labels...
-        double avg_lbl_size = Globals.height * Globals.width;
+        double avg_lbl_size = height * width;
         for (ForceLabel label : labelList){
             if(!label.unplacable && (label.isOverlapping() || canSlide(label)))
-                obstructed.add(label);
+                obstruct(label);
         }
-        //we accept a overlap of p2 of the average label size with p1
+        //we accept a overlap of acceptedOverlap of the average label size with p1
         double p1 = 0.3; //propability of acceptance
-        double p2 = 0.5; //percentage of overlap
         double eps_2 = DEFAULT_FORCE_FAKT_EPS * DEFAULT_FORCE_FAKT_EPS;
-        temperature = avg_lbl_size * p2 * DEFAULT_FORCE_FAKT_OVERLAPPING + DEFAULT_OVERLAPPING_PENALTY + DEFAULT_FORCE_FAKT_REPULSIVE / eps_2;
+        temperature = avg_lbl_size * acceptedOverlap * DEFAULT_FORCE_FAKT_OVERLAPPING + DEFAULT_OVERLAPPING_PENALTY + DEFAULT_FORCE_FAKT_REPULSIVE / eps_2;
         temperature /= -Math.log(p1);
-
-        //temp. should become < 1 after N stages...	
-        double N = 15;	
-        cooling_rate = Math.pow(1. / temperature, 1. / N);
+        schedule.start(temperature);
 
         //moves per stage...
-        if (Globals.numberOfPoints == 10000) {
-            moves_per_stage = 1;
-        } 
-        else {
-            moves_per_stage = 30 * Globals.numberOfPoints;
-        }
-        
-        while (!obstructed.isEmpty() && nIterations < MAX_ITERATIONS) {
+        moves_per_stage = 30 * context.numberOfPoints;
+        finished = obstructed.isEmpty();
+    }
+    
+    /**
+     * Anneals until no label overlaps or until the given number of moves more has been made
+     * @param iterations the number of moves
+     * @return true if no label overlaps
+     */
+    boolean run(int iterations) {
+        int end = (int) Math.min(MAX_ITERATIONS, (long) nIterations + iterations);
+        while (!finished && nIterations < end && !outOfTime()) {
             nIterations ++;
             
             ForceLabel current = chooseNextCandidate();
@@ -121,17 +112,10 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
             double old_force = overallForce;
             int old_position = current.x;
             
-            if (canSlide(current)){
-                findEquilibrium(current);
-                if(canSlide(current)){
-                    randomPlace(current);
-                }
-            } else {
-                randomPlace(current);
-            }
+            moves.move(this, current);
             
             double dE = overallForce - old_force;
-            double p = Math.random();
+            double p = random.nextDouble();
 
             if (dE > 0.0 && p > Math.exp(-dE / temperature)){
                 //reject move
@@ -140,17 +124,20 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
                 nRejected ++;
             }
             else {
+                countOverlaps(current, old_position);
+                
                 //update set of obstructed labels....
                 if(!current.isOverlapping() && !canSlide(current))
-                    obstructed.remove(current);
+                    unobstruct(current);
+                else if (obstructed.contains(current.id))
+                    obstruct(current); //Update its number of overlaps in byOverlaps
 
-                Iterator<ForceLabel> ni = current.neighbours.keySet().iterator();
-                while (ni.hasNext()){
-                    ForceLabel ln = ni.next();
+                for (int neighbour : current.neighbours){
+                    ForceLabel ln = labels.get(neighbour);
                     if(ln.isOverlapping() || canSlide(ln)){
-                        obstructed.add(ln);
+                        obstruct(ln);
                     }else
-                        obstructed.remove(ln);
+                        unobstruct(ln);
                 }
 
                 nTaken ++;
@@ -160,29 +147,13 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
             }
             
             if (nTaken + nRejected >= moves_per_stage){
-                int max_ovl = 0;
-                ForceLabel candidate = null;
-
-                Iterator<ForceLabel> d = obstructed.iterator();
-                while(d.hasNext()){
-                    ForceLabel label = d.next();
-                    int n = 0;
-
-                    Iterator<ForceLabel> it = label.neighbours.keySet().iterator();
-                    while(it.hasNext()){
-                        ForceLabel otherLabel = it.next();
-                        if(!otherLabel.unplacable && ((label.x + Globals.width) > otherLabel.x && (otherLabel.x + Globals.width) > label.x))
-                            n ++;
-                    }
-
-                    if(n > max_ovl){
-                        max_ovl = n;
-                        candidate = label;
-                    }
-                }
+                //The obstructed label with the most overlaps
+                int top = byOverlaps.max();
+                ForceLabel candidate = top == -1 || labels.get(top).overlaps == 0 ? null : labels.get(top);
 
                 if(candidate == null){
                     //We are done
+                    finished = true;
                     break;
                 }
 
@@ -192,10 +163,10 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
                 }
 
                 //decrease temperature
-                temperature = temperature * cooling_rate;
+                temperature = schedule.next(temperature, nTaken, nTaken + nRejected);
                 
                 //adjust moves_per_stage
-                moves_per_stage = Math.max(Globals.numberOfPoints, Math.min(50 * obstructed.size(), 10 * Globals.numberOfPoints));
+                moves_per_stage = Math.max(context.numberOfPoints, Math.min(50 * obstructed.size(), 10 * context.numberOfPoints));
 
                 nStages++;
 
@@ -203,170 +174,143 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
                 nTaken = 0;
                 nUnsignificant = 0;
             }
+            finished |= obstructed.isEmpty();
+        }
+        return finished;
+    }
+    
+    //The labeling, the labels that still overlap are removed when the annealing did not finish
+    List<PointData> finish() {
+        if (!finished) {
+            removeOverlaps();
+            finished = true;
         }
-        
         return pointList;
     }
     
-    List<PointData> FDSA10000(List<Point> points) {
-        
+    /**
+     * Puts every label on a random position, finds the labels that can overlap every label and
+     * sets the forces between them. Every label keeps its neighbours sorted on id, with the force
+     * of each on it and its own position in the arrays of each, so a pair is updated with two writes.
+     * @param points the input
+     * @return the labels, the id of a label is its position
+     */
+    List<ForceLabel> placeLabels(List<Point> points) {
         ArrayList<ForceLabel> labelList = new ArrayList<ForceLabel>();
-        obstructed = new HashSet<ForceLabel>();
         //Place labels on random position
         for (Point point : points) {
-            double shift = Math.random();
-            //System.out.println(shift);
-            int xPos = (int)(shift * (double)Globals.width);
-            ForceLabel label = new ForceLabel(point.x - Globals.width + xPos, point.y);
+            double shift = random.nextDouble();
+            int xPos = (int)(shift * (double)width);
+            ForceLabel label = new ForceLabel(labelList.size(), point.x - width + xPos, point.y, context);
             ForcePointData pointData = new ForcePointData(point.x, point.y, label);
             label.point = pointData;
             pointList.add(pointData);
             labelList.add(label);
-            QT.insert(label);
         }
-        //Find neighbour
+        buildIndex(labelList);
+        
+        //Find neighbours, a label is a neighbour of the labels it finds and of the labels that find it
+        IntList[] found = new IntList[labelList.size()];
+        for (int i = 0; i < found.length; i++) {
+            found[i] = new IntList(8);
+        }
+        for (ForceLabel label : labelList) {
+            for (ForceLabel otherLabel : findNeighbours(label)) {
+                found[label.id].add(otherLabel.id);
+                found[otherLabel.id].add(label.id);
+            }
+        }
+        for (ForceLabel label : labelList) {
+            int[] ids = Arrays.copyOf(found[label.id].values, found[label.id].size());
+            Arrays.sort(ids);
+            int size = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[size++] = ids[i];
+                }
+            }
+            label.neighbours = Arrays.copyOf(ids, size);
+            label.forces = new double[size];
+            label.reverse = new int[size];
+        }
+        for (ForceLabel label : labelList) {
+            for (int i = 0; i < label.neighbours.length; i++) {
+                label.reverse[i] = Arrays.binarySearch(labelList.get(label.neighbours[i]).neighbours, label.id);
+            }
+        }
+        
+        int highest = 0; //Most neighbours of a label, no label can have more overlaps
         for (ForceLabel label : labelList){
-            List<ForceLabel> neighbours = QT.findNeighbours(label);
-            for(ForceLabel otherLabel : neighbours){
+            for (int i = 0; i < label.neighbours.length; i++) {
+                ForceLabel otherLabel = labelList.get(label.neighbours[i]);
                 double force = 0.0;
-                if((label.x + Globals.width) > otherLabel.x && (otherLabel.x + Globals.width) > label.x){ //Are the labels overlapping?
+                if((label.x + width) > otherLabel.x && (otherLabel.x + width) > label.x){ //Are the labels overlapping?
+                    label.overlaps++;
                     if(label.x > otherLabel.x){ //other label is left from this label
-                        force = DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + Globals.width) - label.x) + DEFAULT_OVERLAPPING_PENALTY;
+                        force = DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + width) - label.x) + DEFAULT_OVERLAPPING_PENALTY;
                     } else if(label.x < otherLabel.x){ //other label is right from this label
-                        force = -DEFAULT_FORCE_FAKT_OVERLAPPING * ((label.x + Globals.width) - otherLabel.x) - DEFAULT_OVERLAPPING_PENALTY;
-                    } else { //Labels are on the same position
-                        force = -otherLabel.neighbours.getOrDefault(label, DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + Globals.width) - label.x) + DEFAULT_OVERLAPPING_PENALTY);
+                        force = -DEFAULT_FORCE_FAKT_OVERLAPPING * ((label.x + width) - otherLabel.x) - DEFAULT_OVERLAPPING_PENALTY;
+                    } else { //Labels are on the same position, the one with the lower id is pushed left
+                        force = DEFAULT_FORCE_FAKT_OVERLAPPING * width + DEFAULT_OVERLAPPING_PENALTY;
+                        if (label.id < otherLabel.id) {
+                            force = -force;
+                        }
                     }
                 }
+                label.forces[i] = force;
                 label.totalForce += force;
-                label.neighbours.put(otherLabel, force);
-                otherLabel.neighbours.put(label, -force);
             }
             overallForce += Math.abs(label.totalForce);
+            highest = Math.max(highest, label.neighbours.length);
         }
-        
-        //init temperature && initialize set of obstructed labels...
-        double avg_lbl_size = Globals.height * Globals.width;
-        for (ForceLabel label : labelList){
-            if(!label.unplacable && (label.isOverlapping() || canSlide(label)))
-                obstructed.add(label);
-        }
-        //we accept a overlap of p2 of the average label size with p1
-        double p1 = 0.3; //propability of acceptance
-        double p2 = obstructed.size()/Globals.numberOfPoints; //percentage of overlap
-        double eps_2 = DEFAULT_FORCE_FAKT_EPS * DEFAULT_FORCE_FAKT_EPS;
-        temperature = avg_lbl_size * p2 * DEFAULT_FORCE_FAKT_OVERLAPPING + DEFAULT_OVERLAPPING_PENALTY + DEFAULT_FORCE_FAKT_REPULSIVE / eps_2;
-        temperature /= -Math.log(p1);
-
-        //temp. should become < 1 after N stages...	
-        double N = 15;	
-        cooling_rate = Math.pow(1. / temperature, 1. / N);
-
-        //moves per stage...
-        moves_per_stage = 30 * Globals.numberOfPoints;
-        
-        //long startTime = System.nanoTime();
-        //long oldTime = startTime;
-        while (!obstructed.isEmpty()) {
-            //nIterations ++;
-            ForceLabel current = chooseNextCandidate();
-            
-            double old_force = overallForce;
-            int old_position = current.x;
-            
-            if (canSlide(current)){
-                findEquilibrium(current);
-                if(canSlide(current)){
-                    randomPlace(current);
-                }
-            } else {
-                randomPlace(current);
+        obstructed = new IntSet(labelList.size());
+        byOverlaps = new BucketQueue(labelList.size(), highest);
+        return labelList;
+    }
+    
+    //Removes labels until none overlap, for when the annealing had to stop early
+    void removeOverlaps() {
+        for (ForceLabel label : labels) {
+            if (!label.unplacable && label.isOverlapping()) {
+                removeLabel(label);
             }
-            
-            double dE = overallForce - old_force;
-            double p = Math.random();
-
-            if (dE > 0.0 && p > Math.exp(-dE / temperature)){
-                //reject move
-                current.x = old_position;
-                updateForces(current);
-                nRejected ++;
+        }
+    }
+    
+    //Put the labels in the neighbour index, the grid unless the context asks for the quadtree
+    void buildIndex(List<ForceLabel> labelList) {
+        labels = labelList;
+        if (!context.index.equals("quadtree")) {
+            int[] xs = new int[labelList.size()];
+            int[] ys = new int[labelList.size()];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = labelList.get(i).point.x;
+                ys[i] = labelList.get(i).point.y;
             }
-            else {
-                //update set of obstructed labels....
-                if(current.isOverlapping() && !canSlide(current))
-                    obstructed.remove(current);
-
-                Iterator<ForceLabel> ni = current.neighbours.keySet().iterator();
-                while (ni.hasNext()){
-                    ForceLabel ln = ni.next();
-                    if(ln.isOverlapping() || canSlide(ln)){
-                        obstructed.add(ln);
-                    }else
-                        obstructed.remove(ln);
-                }
-
-                nTaken ++;
-                if(Math.abs(dE) < MIN_FORCE)
-                        nUnsignificant ++;
-
+            //Two sliding labels can only overlap if their points are less than 2 widths apart
+            grid = new GridIndex(xs, ys, 2 * width, height);
+        } else {
+            for (ForceLabel label : labelList) {
+                QT.insert(label);
             }
-            
-            if (nTaken + nRejected >= moves_per_stage){
-                //System.out.println("Iteration: " + nIterations + " temperature: " + temperature + " force: " + overallForce + " obstructed: " + obstructed.size());
-                int max_ovl = 0;
-                ForceLabel candidate = null;
-
-                Iterator<ForceLabel> d = obstructed.iterator();
-                while(d.hasNext()){
-                    ForceLabel label = d.next();
-                    int n = 0;
-                    Iterator<ForceLabel> it = label.neighbours.keySet().iterator();
-                    while(it.hasNext()){
-                        ForceLabel otherLabel = it.next();
-                        if(!otherLabel.unplacable && ((label.x + Globals.width) > otherLabel.x && (otherLabel.x + Globals.width) > label.x))
-                            n++;
-
-                    }
-
-                    if(n > max_ovl){
-                        max_ovl = n;
-                        candidate = label;
-                    }
-                }
-
-                if(candidate == null){
-                    //We are done
-                    break;
-                }
-                
-
-                
-                if(nTaken - nUnsignificant <= 0){
-                    //Remove candidate label
-                    removeLabel(candidate);
-                }
-
-                //decrease temperature
-                temperature = temperature * cooling_rate;
-                
-                //long newTime = System.nanoTime();
-                //long timeDifference = oldTime - newTime;
-                
-                //adjust moves_per_stage
-                moves_per_stage = Math.max(Globals.numberOfPoints, Math.min(50 * obstructed.size(), 10 * Globals.numberOfPoints));
-                
-                nStages++;
-
-                nRejected = 0;
-                nTaken = 0;
-                nUnsignificant = 0;
-                
-                //oldTime = newTime;
+        }
+    }
+    
+    //All labels that could overlap the given label
+    List<ForceLabel> findNeighbours(ForceLabel label) {
+        if (grid == null) {
+            return QT.findNeighbours(label);
+        }
+        IntList result = new IntList();
+        grid.query(label.point.x, label.point.y, result);
+        List<ForceLabel> neighbours = new ArrayList<>(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            ForceLabel otherLabel = labels.get(result.get(i));
+            if (otherLabel != label) {
+                neighbours.add(otherLabel);
             }
         }
-       
-        return pointList;
+        return neighbours;
     }
     
     boolean canSlide(ForceLabel label){
@@ -379,46 +323,99 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
     
     
     
+    void equilibriumSlide(ForceLabel label) {
+        if (canSlide(label)){
+            findEquilibrium(label);
+            if(canSlide(label)){
+                randomPlace(label);
+            }
+        } else {
+            randomPlace(label);
+        }
+    }
+    
+    /**
+     * Places the label at a random position where it overlaps none of its placed neighbours.
+     * Such a position exists iff one exists at an end of the range or against a neighbour.
+     */
+    void freeGapPlace(ForceLabel label) {
+        int lowest = label.point.x - width;
+        int found = 0;
+        int chosen = 0;
+        for (int i = -2; i < 2 * label.neighbours.length; i++) {
+            int x;
+            if (i < 0) {
+                x = i == -2 ? lowest : label.point.x;
+            } else {
+                ForceLabel otherLabel = labels.get(label.neighbours[i / 2]);
+                if (otherLabel.unplacable) {
+                    continue;
+                }
+                x = (i & 1) == 0 ? otherLabel.x - width : otherLabel.x + width;
+                if (x < lowest || x > label.point.x) {
+                    continue;
+                }
+            }
+            if (isFree(label, x) && random.nextInt(++found) == 0) {
+                chosen = x;
+            }
+        }
+        if (found == 0) {
+            randomPlace(label);
+        } else {
+            label.x = chosen;
+            updateForces(label);
+        }
+    }
+    
+    //Does the label overlap none of its placed neighbours at x?
+    boolean isFree(ForceLabel label, int x) {
+        for (int neighbour : label.neighbours) {
+            ForceLabel otherLabel = labels.get(neighbour);
+            if (!otherLabel.unplacable && (x + width) > otherLabel.x && (otherLabel.x + width) > x) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     void randomPlace(ForceLabel label) {
-        double shift = Math.random();
-        label.x = label.point.x - Globals.width + (int)(shift * (double)Globals.width);
+        double shift = random.nextDouble();
+        label.x = label.point.x - width + (int)(shift * (double)width);
         updateForces(label);
     }
     
     ForceLabel chooseNextCandidate(){
         if(!obstructed.isEmpty()) {
-            Random random = new Random();
-            
-            int i = random.nextInt(obstructed.size());
-            Iterator it = obstructed.iterator();
-            ForceLabel l = null;
-            for(int j=0; j<= i && it.hasNext(); j++)
-                l = (ForceLabel)it.next();
-
-            return l;
+            return labels.get(obstructed.pick(random));
         }
 	return null;
     }
     
     void removeLabel(ForceLabel label) {
+        nRemoved++;
         label.unplacable = true;
         label.point.label = null;
-        obstructed.remove(label);
+        unobstruct(label);
         
         overallForce -= Math.abs(label.totalForce);
         label.totalForce = 0.0;
         
-        for(ForceLabel otherLabel : label.neighbours.keySet()){
+        for (int i = 0; i < label.neighbours.length; i++) {
+            ForceLabel otherLabel = labels.get(label.neighbours[i]);
+            if (label.forces[i] != 0.0) {
+                otherLabel.overlaps--;
+            }
             overallForce -= Math.abs(otherLabel.totalForce);
-            otherLabel.totalForce -= otherLabel.neighbours.get(label);
-            otherLabel.neighbours.put(label, 0.0);
-            label.neighbours.put(otherLabel, 0.0);
+            otherLabel.totalForce -= otherLabel.forces[label.reverse[i]];
+            otherLabel.forces[label.reverse[i]] = 0.0;
+            label.forces[i] = 0.0;
             overallForce += Math.abs(otherLabel.totalForce);
             //is the neighour still obstructed?
             if(!otherLabel.unplacable && (otherLabel.isOverlapping() || canSlide(otherLabel)))
-                obstructed.add(otherLabel);
+                obstruct(otherLabel);
             else
-                obstructed.remove(otherLabel);
+                unobstruct(otherLabel);
         }
         
     }
@@ -439,7 +436,7 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
             total = label.point.x - label.x;
             old_direction = 1;
         } else {//Label wants to move left
-            total = (label.x + Globals.width) - label.point.x;
+            total = (label.x + width) - label.point.x;
             old_direction = -1;
         }
         
@@ -449,8 +446,8 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
             label.x += old_direction * amount;
             
             //Ensure it can't be placed outside its point range
-            if(label.x < label.point.x - Globals.width){
-                label.x = label.point.x - Globals.width;
+            if(label.x < label.point.x - width){
+                label.x = label.point.x - width;
             } else if(label.x > label.point.x) {
                 label.x = label.point.x;
             }
@@ -477,23 +474,30 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
         overallForce -= Math.abs(label.totalForce);
         label.totalForce = 0.0;
         
-        for(ForceLabel otherLabel : label.neighbours.keySet()) {
+        for (int i = 0; i < label.neighbours.length; i++) {
+            ForceLabel otherLabel = labels.get(label.neighbours[i]);
             if (!otherLabel.unplacable){
+                int j = label.reverse[i]; //Position of label in the arrays of otherLabel
                 overallForce -= Math.abs(otherLabel.totalForce);
-                otherLabel.totalForce -= otherLabel.neighbours.get(label);
+                otherLabel.totalForce -= otherLabel.forces[j];
                 double force = 0.0;
-                if((label.x + Globals.width) > otherLabel.x && (otherLabel.x + Globals.width) > label.x){ //Are the labels overlapping?
+                if((label.x + width) > otherLabel.x && (otherLabel.x + width) > label.x){ //Are the labels overlapping?
                     if(label.x > otherLabel.x){ //other label is left from this label
-                        force = DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + Globals.width) - label.x) + DEFAULT_OVERLAPPING_PENALTY;
+                        force = DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + width) - label.x) + DEFAULT_OVERLAPPING_PENALTY;
                     } else if(label.x < otherLabel.x){ //other label is right from this label
-                        force = -DEFAULT_FORCE_FAKT_OVERLAPPING * ((label.x + Globals.width) - otherLabel.x) - DEFAULT_OVERLAPPING_PENALTY;
-                    } else { //Labels are on the same position
-                        force = -otherLabel.neighbours.getOrDefault(label, DEFAULT_FORCE_FAKT_OVERLAPPING * ((otherLabel.x + Globals.width) - label.x) + DEFAULT_OVERLAPPING_PENALTY);
+                        force = -DEFAULT_FORCE_FAKT_OVERLAPPING * ((label.x + width) - otherLabel.x) - DEFAULT_OVERLAPPING_PENALTY;
+                    } else if (otherLabel.forces[j] != 0.0) { //Labels are on the same position, they keep pushing apart the way they did
+                        force = -otherLabel.forces[j];
+                    } else { //Labels landed on the same position, the one with the lower id is pushed left
+                        force = DEFAULT_FORCE_FAKT_OVERLAPPING * width + DEFAULT_OVERLAPPING_PENALTY;
+                        if (label.id < otherLabel.id) {
+                            force = -force;
+                        }
                     }
                 }
                 
-                label.neighbours.put(otherLabel, force);
-                otherLabel.neighbours.put(label, -force);
+                label.forces[i] = force;
+                otherLabel.forces[j] = -force;
                 label.totalForce += force;
                 otherLabel.totalForce += -force;
                 overallForce += Math.abs(otherLabel.totalForce);
@@ -503,6 +507,39 @@ public class ForceDirectedSimulatedAnnealing extends LabelSolver {
         overallForce += Math.abs(label.totalForce);
     }
     
+    /**
+     * Updates the numbers of overlaps once a move of the label is taken, a rejected move changes
+     * nothing. Only the label moved, so only its own pairs can have started or stopped overlapping.
+     * @param label the label that moved
+     * @param from the position it moved from
+     */
+    void countOverlaps(ForceLabel label, int from) {
+        for (int i = 0; i < label.neighbours.length; i++) {
+            ForceLabel otherLabel = labels.get(label.neighbours[i]);
+            if (otherLabel.unplacable) {
+                continue;
+            }
+            boolean overlapped = (from + width) > otherLabel.x && (otherLabel.x + width) > from;
+            boolean overlapping = label.forces[i] != 0.0;
+            if (overlapped != overlapping) {
+                int change = overlapping ? 1 : -1;
+                label.overlaps += change;
+                otherLabel.overlaps += change;
+            }
+        }
+    }
+    
+    //The key of a label in byOverlaps is its number of overlaps when it was last obstructed
+    void obstruct(ForceLabel label) {
+        obstructed.add(label.id);
+        byOverlaps.add(label.id, label.overlaps);
+    }
+    
+    void unobstruct(ForceLabel label) {
+        obstructed.remove(label.id);
+        byOverlaps.remove(label.id);
+    }
+    
     @Override
     List<PointData> getLabeledPoints2pos(List<Point> points) {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
@@ -1,32 +1,26 @@
-
-import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-
 public class ForceLabel extends Label {
     
-    HashMap<ForceLabel, Double> neighbours;
+    final int id; //Position of the label in the list of the solver
+    int[] neighbours; //Ids of the labels that can overlap this one
+    double[] forces; //Force of every neighbour on this label, not 0 exactly when they overlap
+    int[] reverse; //Position of this label in the arrays of every neighbour
     double totalForce = 0.0;
+    int overlaps = 0; //Number of labels that are not unplacable and overlap this one, as of the last move that was taken
     
     boolean unplacable = false;
     
     ForcePointData point = null;
     
-    public ForceLabel(int x, int y){
+    LabelingContext context;
+    
+    public ForceLabel(int id, int x, int y, LabelingContext context){
+        this.id = id;
         super.x = x;
         super.y = y;
-        this.neighbours = new HashMap<>();
+        this.context = context;
     }
     
     boolean isOverlapping(){
-        if (unplacable)
-            return false;
-        
-        for (ForceLabel otherLabel : neighbours.keySet()) {
-            if (otherLabel.unplacable)
-		continue;
-            if ((this.x + Globals.width) > otherLabel.x && (otherLabel.x + Globals.width) > this.x)
-                return true;
-        }
-        return false;
+        return !unplacable && overlaps > 0;
     }
 }
@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 public class ForcePointData extends PointData {
     
     ForceLabel label;
@@ -8,7 +10,7 @@ public class ForcePointData extends PointData {
     }
     
     double getShift(){
-        return 1.0 - ((double)(x - label.x) / (double)Globals.width);
+        return 1.0 - ((double)(x - label.x) / (double)label.context.width);
     }
     
     @Override
@@ -21,4 +23,18 @@ public class ForcePointData extends PointData {
         }
     }
     
+    @Override
+    boolean hasLabel() {
+        return label != null;
+    }
+    
+    @Override
+    void writeLabelInfo(OutputWriter out) throws IOException {
+        if (label != null) {
+            out.writeDouble(getShift());
+        } else {
+            out.writeBytes(CandidatePointData.NIL);
+        }
+    }
+    
 }
@@ -1,10 +0,0 @@
-class Globals {
-        static int minX;
-        static int maxX;
-        static int minY;
-        static int maxY;
-        static int width;
-        static int height;
-        static int numberOfPoints;
-        static int numberOfLabels = 0;
-}
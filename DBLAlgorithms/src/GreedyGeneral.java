@@ -1,193 +1,227 @@
-
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 
 class GreedyGeneral extends LabelSolver {
 
-    int width;
-    int height;
-    PriorityQueue<LabelGeneral> queue;
-    HashMap<Point,LabelGeneral> labelMap;
+    LabelStore store;
+    LabelQueue queue;
+    long[] priority; //Number of overlaps in the high bits, fewest labels left of an owning point in the low bits
+    LongIntMap labelMap; //Label at every position
     List<PointData> pointList;
-    QuadTree QT;
-    
-    public GreedyGeneral (int width, int height) {
-        this.width = width;
-        this.height = height;
-        queue = new PriorityQueue<>(new Comparator<LabelGeneral>(){
-                @Override
-                public int compare(LabelGeneral o1, LabelGeneral o2) {
-                    if (o1.overlappingLabels.size() > o2.overlappingLabels.size())
-                        return 1;
-                    else if (o1.overlappingLabels.size() < o2.overlappingLabels.size())
-                        return -1;
-                    else {
-                        int o1min = Integer.MAX_VALUE;
-                        int o2min = Integer.MAX_VALUE;
-                        for (PointGeneral point : o1.points) {
-                            if (point.labels.size() < o1min) {
-                                o1min = point.labels.size();
-                            }
-                        }
-                        for (PointGeneral point : o2.points) {
-                            if (point.labels.size() < o2min) {
-                                o2min = point.labels.size();
-                            }
-                        }
-                        return o1min - o2min;
-                    }
-                }
-        });
-        labelMap = new HashMap<>();
+
+    //Scratch space for placeLabels
+    int[] mark;
+    int stamp;
+    IntList updateList;
+    IntList deleteList;
+
+    public GreedyGeneral (LabelingContext context) {
+        super(context);
         pointList = new ArrayList<>();
-        QT = new QuadTree(width, height);
     }
 
     @Override
     List<PointData> getLabeledPoints2pos(List<Point> points) {
+        store = new LabelStore(points.size());
+        labelMap = new LongIntMap(2 * points.size());
         for (Point point : points) {
-            PointGeneral pointData = new PointGeneral(point.x, point.y);
-            pointList.add(pointData);
+            int pointData = store.addPoint(point.x, point.y);
             //Create new labels for this point
-            Set<Point> labelPositions = new HashSet<>(2);
-            labelPositions.add(new Point(point.x, point.y));
-            labelPositions.add(new Point(point.x - width, point.y));
-            //Put new labels in datastructures
-            for (Point pos : labelPositions) {
-                LabelGeneral label = labelMap.get(pos);
-                if (label == null) {
-                    label = new LabelGeneral(pointData, pos.x, pos.y);
-                    labelMap.put(pos, label);
-                    QT.insert(label);
-                } else {
-                    label.points.add(pointData);
-                }
-                pointData.labels.add(label);
-            }            
+            addLabel(pointData, point.x, point.y);
+            addLabel(pointData, point.x - width, point.y);
         }
         //Find all overlapping labels
         findOverlaps();
-        
+
         //Place labels
         placeLabels();
-        
-        return pointList;
+
+        return getPointList();
     }
 
     @Override
     List<PointData> getLabeledPoints4pos(List<Point> points) {
+        store = new LabelStore(points.size());
+        labelMap = new LongIntMap(4 * points.size());
         for (Point point : points) {
-            PointGeneral pointData = new PointGeneral(point.x, point.y);
-            pointList.add(pointData);
+            int pointData = store.addPoint(point.x, point.y);
             //Create new labels for this point
-            Set<Point> labelPositions = new HashSet<>(4);
-            labelPositions.add(new Point(point.x, point.y));
-            labelPositions.add(new Point(point.x - width, point.y));
-            labelPositions.add(new Point(point.x, point.y - height));
-            labelPositions.add(new Point(point.x - width, point.y - height));
-            //Put new labels in datastructures
-            for (Point pos : labelPositions) {
-                LabelGeneral label = labelMap.get(pos);
-                if (label == null) {
-                    label = new LabelGeneral(pointData, pos.x, pos.y);
-                    labelMap.put(pos, label);
-                    QT.insert(label);
-                } else {
-                    label.points.add(pointData);
-                }
-                pointData.labels.add(label);
-            }
+            addLabel(pointData, point.x, point.y);
+            addLabel(pointData, point.x - width, point.y);
+            addLabel(pointData, point.x, point.y - height);
+            addLabel(pointData, point.x - width, point.y - height);
         }
-        
+
         //Find all overlapping labels
         findOverlaps();
-        
+
         //Place labels
         placeLabels();
-        
-        return pointList;
+
+        return getPointList();
     }
 
+    /**
+     * Places sliding labels from left to right, every label as far left as it fits.
+     * The label of a point can be anywhere in [x - width, x], the labels placed before it that
+     * reach into that interval are swept in x order to find the leftmost gap of one label width.
+     * Placed labels are kept per horizontal strip of one label height in x order,
+     * so only the strips directly around the point have to be checked.
+     */
     @Override
     List<PointData> getLabeledPoints1slider(List<Point> points) {
-        List<Integer> positions = new ArrayList<>();
-        for (int i = 0; i <= width; i++) {
-            positions.add(i);
+        int n = points.size();
+        SliderPointData[] result = new SliderPointData[n];
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            Point point = points.get(i);
+            result[i] = new SliderPointData(point.x, point.y, width);
+            keys[i] = ((long) point.x << 32) | i;
         }
-        for (Point point : points) {
-            PointGeneral pointData = new PointGeneral(point.x, point.y);
-            pointList.add(pointData);
-            //Create new labels for this point
-            Set<Point> labelPositions = new HashSet<>(4);
-            for (int i : positions) {
-                labelPositions.add(new Point(point.x - width + i, point.y));
+        Arrays.sort(keys);
+
+        //Placed labels of every strip, the first head[strip] of them can no longer be in the way
+        LongIntMap stripMap = new LongIntMap(n);
+        List<IntList> strips = new ArrayList<>();
+        IntList head = new IntList();
+        IntList nearby = new IntList(); //Left of the placed labels in the way of the point
+        int stripHeight = Math.max(height, 1);
+        for (int k = 0; k < n && !outOfTime(); k++) {
+            SliderPointData point = result[(int) keys[k]];
+            long strip = Math.floorDiv((long) point.y, (long) stripHeight);
+            nearby.clear();
+            //Labels without area can not overlap
+            for (long s = strip - 1; width > 0 && height > 0 && s <= strip + 1; s++) {
+                int index = stripMap.get(s);
+                if (index == -1) {
+                    continue;
+                }
+                IntList placed = strips.get(index);
+                int first = head.get(index);
+                //Labels ending left of x - width are out of reach of this and all later points
+                while (first < placed.size() && (long) result[placed.get(first)].labelX + width <= (long) point.x - width) {
+                    first++;
+                }
+                head.values[index] = first;
+                for (int i = first; i < placed.size(); i++) {
+                    SliderPointData other = result[placed.get(i)];
+                    if (Math.abs(other.y - point.y) < height) {
+                        nearby.add(other.labelX);
+                    }
+                }
             }
-            //Put new labels in datastructures
-            for (Point pos : labelPositions) {
-                LabelGeneral label = labelMap.get(pos);
-                if (label == null) {
-                    label = new LabelGeneral(pointData, pos.x, pos.y);
-                    labelMap.put(pos, label);
-                    QT.insert(label);
-                } else {
-                    label.points.add(pointData);
+            //Sweep the labels in the way from left to right, the label fits in front of the first one that starts a width after it
+            Arrays.sort(nearby.values, 0, nearby.size());
+            long left = (long) point.x - width;
+            for (int i = 0; i < nearby.size() && nearby.get(i) < left + width; i++) {
+                left = Math.max(left, (long) nearby.get(i) + width);
+            }
+            if (left <= point.x) {
+                point.labelX = (int) left;
+                point.placed = true;
+                int index = stripMap.get(strip);
+                if (index == -1) {
+                    index = strips.size();
+                    stripMap.put(strip, index);
+                    strips.add(new IntList());
+                    head.add(0);
                 }
-                pointData.labels.add(label);
-            }            
+                strips.get(index).add((int) keys[k]);
+            }
+        }
+
+        for (SliderPointData point : result) {
+            pointList.add(point);
         }
-        
-        //Find all overlapping labels
-        findOverlaps();
-        
-        //Place labels
-        placeLabels();
-        
         return pointList;
     }
-    
+
+    /**
+     * Labels the points greedily, for the exact solvers that start from the greedy labeling
+     * @param context the run
+     * @param points the points to label
+     * @param candidates 2 for the 2pos model, 4 for the 4pos model
+     * @return the candidate of every point in the order they were given, -1 for no label
+     */
+    static int[] chooseCandidates(LabelingContext context, List<Point> points, int candidates) {
+        GreedyGeneral greedy = new GreedyGeneral(context);
+        if (candidates == 2) {
+            greedy.getLabeledPoints2pos(points);
+        } else {
+            greedy.getLabeledPoints4pos(points);
+        }
+        int[] choice = new int[points.size()];
+        for (int p = 0; p < choice.length; p++) {
+            choice[p] = greedy.store.new PointView(p).candidate();
+        }
+        return choice;
+    }
+
+    //Put the label at this position in the store, or share it if another point already has one there.
+    //Labels without area never overlap, so then every point gets labels of its own
+    void addLabel(int pointData, int x, int y) {
+        if (width == 0 || height == 0) {
+            store.addOwner(store.addLabel(x, y), pointData);
+            return;
+        }
+        long pos = LongIntMap.key(x, y);
+        int label = labelMap.get(pos);
+        if (label == -1) {
+            label = store.addLabel(x, y);
+            labelMap.put(pos, label);
+        }
+        store.addOwner(label, pointData);
+    }
+
+    List<PointData> getPointList() {
+        for (int p = 0; p < store.points; p++) {
+            pointList.add(store.new PointView(p));
+        }
+        return pointList;
+    }
+
     void findOverlaps(){
-        for (Map.Entry<Point, LabelGeneral> entry : labelMap.entrySet()) {
-            LabelGeneral label = entry.getValue();
-            //Create interval strictly smaller than this label
-            Interval2D<Integer> rect = new Interval2D<Integer>(
-                    new Interval<Integer>(label.x, label.x + width),
-                    new Interval<Integer>(label.y, label.y + height));
-            label.overlappingLabels = QT.query2D(rect);
-            label.overlappingLabels.remove(label);
+        store.finish(context);
+        priority = new long[store.labels];
+        queue = new LabelQueue(priority);
+        mark = new int[store.labels];
+        updateList = new IntList();
+        deleteList = new IntList();
+        for (int label = 0; label < store.labels; label++) {
+            updatePriority(label);
             queue.add(label);
         }
     }
-    
+
     void placeLabels() {
-        while (!queue.isEmpty()) {
-            LabelGeneral label = queue.poll();
-            
-            PointGeneral pointData = label.points.get(0);
-            
+        LabelStore s = store;
+        //Stopping early is fine, the labels placed so far never overlap
+        while (!queue.isEmpty() && !outOfTime()) {
+            int label = queue.poll();
+
+            int pointData = -1;
+
             //Which point should the label be assigned to
             int max = 0;
-            for (PointGeneral point : label.points) {
-                //All overlaps the labels of this point can make
-                Set<Label> allOverlaps = new HashSet<>();
-                for (LabelGeneral otherLabel : point.labels) {
-                    allOverlaps.addAll(otherLabel.overlappingLabels);
+            for (int slot = s.ownerStart[label]; slot < s.ownerStart[label + 1]; slot++) {
+                if (!s.linked[slot]) {
+                    continue;
+                }
+                int point = s.owner[slot];
+                if (pointData == -1) {
+                    pointData = point;
                 }
-                allOverlaps.removeAll(point.labels);
-                int totalOverlaps = allOverlaps.size();
+                //All overlaps the labels of this point can make
+                int totalOverlaps = countOverlaps(point);
                 if (totalOverlaps == max) {
-                    if (point.x < pointData.x) {
-                        if (point.y > pointData.y) {
+                    if (s.pointX[point] < s.pointX[pointData]) {
+                        if (s.pointY[point] > s.pointY[pointData]) {
                             pointData = point;
                             max = totalOverlaps;
                         }
                     }
-                    if (point.y > pointData.y) {
+                    if (s.pointY[point] > s.pointY[pointData]) {
                         pointData = point;
                         max = totalOverlaps;
                     }
@@ -197,69 +231,140 @@ class GreedyGeneral extends LabelSolver {
                     max = totalOverlaps;
                 }
             }
-            
+
             //Delete this label from all other points owning that label
-            for (PointGeneral otherPoint : label.points) {
-                if (!otherPoint.equals(pointData)) {
-                    otherPoint.labels.remove(label);
-                    label.points.remove(otherPoint);
+            for (int slot = s.ownerStart[label]; slot < s.ownerStart[label + 1]; slot++) {
+                if (s.linked[slot] && s.owner[slot] != pointData) {
+                    s.unlink(slot);
+                    updatePriorities(s.owner[slot]);
                 }
             }
-            
+
             //Keep track of all labels that need to be updated and deleted
-            Set<LabelGeneral> updateList = new HashSet<>();
-            Set<LabelGeneral> deleteList = new HashSet<>();
-            
+            stamp += 2;
+            int updateStamp = stamp - 1;
+            int deleteStamp = stamp;
+            updateList.clear();
+            deleteList.clear();
+
             //Delete all other labels for this point
-            for (LabelGeneral otherLabel : pointData.labels) {
-                if (!label.equals(otherLabel)) { //If it is another label for this point
+            for (int i = s.labelStart[pointData]; i < s.labelStart[pointData + 1]; i++) {
+                int slot = s.labelSlot[i];
+                int otherLabel = s.slotLabel[slot];
+                if (s.linked[slot] && otherLabel != label) { //If it is another label for this point
                     //Remove pointData from the list of points owning this label
-                    otherLabel.points.remove(pointData);
-                    
+                    s.unlink(slot);
+                    updatePriority(otherLabel);
+
                     //Check if the label is still owned
-                    if (otherLabel.points.isEmpty()) {
+                    if (s.liveOwners[otherLabel] == 0) {
                         //If not label can not be placed anymore so all overlapping labels need to be updated
-                        deleteList.add(otherLabel);
-                        for (LabelGeneral updateLabel : otherLabel.overlappingLabels) {
-                            updateList.add(updateLabel);
-                        }
+                        markDeleted(otherLabel, deleteStamp, updateStamp);
                     }
                 }
             }
-            pointData.labels = new ArrayList<>();
-            pointData.labels.add(label);
-            
+            s.placed[pointData] = label;
+
             //Remove all labels that overlap this label
-            for (LabelGeneral otherLabel : label.overlappingLabels) {
-                deleteList.add(otherLabel);
-                //Label can not be placed anymore so all overlapping labels need to be updated
-                for (LabelGeneral updateLabel : otherLabel.overlappingLabels) {
-                    updateList.add(updateLabel);
+            for (int i = s.overlapStart[label]; i < s.overlapStart[label + 1]; i++) {
+                int otherLabel = s.overlap[i];
+                if (s.alive[otherLabel]) {
+                    //Label can not be placed anymore so all overlapping labels need to be updated
+                    markDeleted(otherLabel, deleteStamp, updateStamp);
                 }
             }
-            
-            //Remove labels that are being deleted from update list
-            updateList.removeAll(deleteList);
-            
+
             //Delete all labels from delete list
-            for (LabelGeneral otherLabel : deleteList) {
-                for (LabelGeneral updateLabel : otherLabel.overlappingLabels) {
-                    updateLabel.overlappingLabels.remove(otherLabel);
+            for (int k = 0; k < deleteList.size(); k++) {
+                int otherLabel = deleteList.get(k);
+                s.alive[otherLabel] = false;
+                for (int i = s.overlapStart[otherLabel]; i < s.overlapStart[otherLabel + 1]; i++) {
+                    int updateLabel = s.overlap[i];
+                    if (s.alive[updateLabel]) {
+                        s.liveOverlaps[updateLabel]--;
+                        updatePriority(updateLabel);
+                    }
                 }
-                for (PointGeneral updatePoint : otherLabel.points) {
-                    updatePoint.labels.remove(otherLabel);
+                for (int slot = s.ownerStart[otherLabel]; slot < s.ownerStart[otherLabel + 1]; slot++) {
+                    if (s.linked[slot]) {
+                        s.unlink(slot);
+                        updatePriorities(s.owner[slot]);
+                    }
                 }
                 queue.remove(otherLabel);
             }
-            
-            //Update all labels from update list
-            for (LabelGeneral otherLabel : updateList) {
-                if (queue.remove(otherLabel)) {
+
+            //Update all labels from update list, except the ones that were deleted
+            for (int k = 0; k < updateList.size(); k++) {
+                int otherLabel = updateList.get(k);
+                if (mark[otherLabel] != deleteStamp && queue.remove(otherLabel)) {
                     queue.add(otherLabel);
                 }
             }
-            //System.out.println("Labels left: " + pointData.labels.size());
-            //System.out.println("Placing label: " + pointData.getLabelInfo());
+        }
+    }
+
+    //Put a label on the delete list and its overlapping labels on the update list
+    void markDeleted(int label, int deleteStamp, int updateStamp) {
+        if (mark[label] != deleteStamp) {
+            mark[label] = deleteStamp;
+            deleteList.add(label);
+        }
+        for (int i = store.overlapStart[label]; i < store.overlapStart[label + 1]; i++) {
+            int updateLabel = store.overlap[i];
+            if (store.alive[updateLabel] && mark[updateLabel] != deleteStamp && mark[updateLabel] != updateStamp) {
+                mark[updateLabel] = updateStamp;
+                updateList.add(updateLabel);
+            }
+        }
+    }
+
+    //Number of labels overlapping the labels of this point, not counting its own labels
+    int countOverlaps(int point) {
+        LabelStore s = store;
+        stamp++;
+        for (int i = s.labelStart[point]; i < s.labelStart[point + 1]; i++) {
+            int slot = s.labelSlot[i];
+            if (s.linked[slot]) {
+                mark[s.slotLabel[slot]] = stamp;
+            }
+        }
+        int count = 0;
+        for (int i = s.labelStart[point]; i < s.labelStart[point + 1]; i++) {
+            int slot = s.labelSlot[i];
+            if (!s.linked[slot]) {
+                continue;
+            }
+            int label = s.slotLabel[slot];
+            for (int j = s.overlapStart[label]; j < s.overlapStart[label + 1]; j++) {
+                int otherLabel = s.overlap[j];
+                if (s.alive[otherLabel] && mark[otherLabel] != stamp) {
+                    mark[otherLabel] = stamp;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    //Recompute the priority, needs to be called whenever the overlaps of the label or the labels of an owning point change
+    void updatePriority(int label) {
+        int min = Integer.MAX_VALUE;
+        for (int slot = store.ownerStart[label]; slot < store.ownerStart[label + 1]; slot++) {
+            if (store.linked[slot] && store.liveLabels[store.owner[slot]] < min) {
+                min = store.liveLabels[store.owner[slot]];
+            }
+        }
+        priority[label] = ((long) store.liveOverlaps[label] << 32) | min;
+    }
+
+    //Recompute the priority of all labels of a point after its list of labels changed
+    void updatePriorities(int point) {
+        for (int i = store.labelStart[point]; i < store.labelStart[point + 1]; i++) {
+            int slot = store.labelSlot[i];
+            if (store.linked[slot]) {
+                updatePriority(store.slotLabel[slot]);
+            }
         }
     }
 }
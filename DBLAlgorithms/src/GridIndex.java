@@ -0,0 +1,113 @@
+/**
+ * Uniform grid over positions, stored as compressed rows: the positions in cell c
+ * are ids[cellStart[c]] up to ids[cellStart[c + 1]].
+ * A query returns all positions within rangeX and rangeY (exclusive) of a position.
+ * Cells are one range in size unless the positions are very spread out, so a query
+ * normally only looks at a 3x3 block of cells.
+ * For labels the range is the label size and a query returns the overlapping labels.
+ */
+class GridIndex implements SpatialIndex {
+
+    private final int rangeX;
+    private final int rangeY;
+
+    private final int minX;
+    private final int minY;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int columns;
+    private final int rows;
+
+    private final int[] cellStart;
+    //Positions in cell order
+    private final int[] ids;
+    private final int[] xs;
+    private final int[] ys;
+
+    public GridIndex(int[] x, int[] y, int rangeX, int rangeY) {
+        this.rangeX = rangeX;
+        this.rangeY = rangeY;
+        //Cells need a size even when the range is empty
+        int stepX = Math.max(rangeX, 1);
+        int stepY = Math.max(rangeY, 1);
+        int n = x.length;
+        int lowX = Integer.MAX_VALUE, lowY = Integer.MAX_VALUE;
+        int highX = Integer.MIN_VALUE, highY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            lowX = Math.min(lowX, x[i]);
+            lowY = Math.min(lowY, y[i]);
+            highX = Math.max(highX, x[i]);
+            highY = Math.max(highY, y[i]);
+        }
+        if (n == 0) {
+            lowX = lowY = highX = highY = 0;
+        }
+        minX = lowX;
+        minY = lowY;
+
+        //Use bigger cells when the points are so spread out that the grid would get too big
+        int scale = 1;
+        while ((((long) highX - lowX) / ((long) stepX * scale) + 1)
+                * (((long) highY - lowY) / ((long) stepY * scale) + 1) > 4L * n + 16) {
+            scale *= 2;
+        }
+        cellWidth = stepX * scale;
+        cellHeight = stepY * scale;
+        columns = (int) (((long) highX - lowX) / cellWidth + 1);
+        rows = (int) (((long) highY - lowY) / cellHeight + 1);
+
+        //Counting sort of the positions on their cell
+        cellStart = new int[columns * rows + 1];
+        int[] cells = new int[n];
+        for (int i = 0; i < n; i++) {
+            cells[i] = cell(x[i], y[i]);
+            cellStart[cells[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = new int[columns * rows];
+        System.arraycopy(cellStart, 0, next, 0, next.length);
+        ids = new int[n];
+        xs = new int[n];
+        ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            int slot = next[cells[i]]++;
+            ids[slot] = i;
+            xs[slot] = x[i];
+            ys[slot] = y[i];
+        }
+    }
+
+    private int cell(int x, int y) {
+        return (int) (((long) y - minY) / cellHeight) * columns + (int) (((long) x - minX) / cellWidth);
+    }
+
+    @Override
+    public void query(int x, int y, IntList result) {
+        if (rangeX <= 0 || rangeY <= 0) {
+            //Labels without area do not overlap, not even at the same position
+            return;
+        }
+        long xmin = (long) x - rangeX;
+        long xmax = (long) x + rangeX;
+        long ymin = (long) y - rangeY;
+        long ymax = (long) y + rangeY;
+        int fromColumn = (int) Math.max(0, Math.floorDiv(xmin + 1 - minX, (long) cellWidth));
+        int toColumn = (int) Math.min(columns - 1, Math.floorDiv(xmax - 1 - minX, (long) cellWidth));
+        int fromRow = (int) Math.max(0, Math.floorDiv(ymin + 1 - minY, (long) cellHeight));
+        int toRow = (int) Math.min(rows - 1, Math.floorDiv(ymax - 1 - minY, (long) cellHeight));
+        if (fromColumn > toColumn) {
+            return;
+        }
+        for (int row = fromRow; row <= toRow; row++) {
+            int from = cellStart[row * columns + fromColumn];
+            int to = cellStart[row * columns + toColumn + 1];
+            for (int i = from; i < to; i++) {
+                if (xs[i] > xmin && xs[i] < xmax && ys[i] > ymin && ys[i] < ymax) {
+                    result.add(ids[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the ways of finding overlaps on random 4pos candidate labels.
+ * Usage: java IndexBenchmark [width] [height]
+ */
+public class IndexBenchmark {
+
+    static final String[] INDEXES = { "quadtree", "rtree", "grid", "sweep" };
+    static final int[] SIZES = { 10000, 1000000 };
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        for (int n : SIZES) {
+            //Keep the density of the 10000 point benchmark in LabelPlacer
+            int range = (int) (10000 * Math.sqrt(n / 10000.0));
+            List<LabelGeneral> labels = randomLabels(n, range, width, height, new Random(n));
+            for (String index : INDEXES) {
+                LabelingContext context = new LabelingContext(width, height, n, new Random(n), index,
+                        LabelingContext.DEFAULT_EXACT_LIMIT);
+                long time1 = System.currentTimeMillis();
+                ConflictGraph graph = ConflictGraph.build(labels, context);
+                long time2 = System.currentTimeMillis();
+                System.out.println(index + " on " + n + " points (" + labels.size() + " labels): overlap graph built in "
+                        + (time2 - time1) + " ms, " + graph.neighbours.length / 2 + " overlaps");
+            }
+            System.out.println();
+        }
+    }
+
+    static List<LabelGeneral> randomLabels(int n, int range, int width, int height, Random random) {
+        List<LabelGeneral> labels = new ArrayList<>(4 * n);
+        for (int i = 0; i < n; i++) {
+            PointGeneral point = new PointGeneral(random.nextInt(range), random.nextInt(range));
+            int[][] positions = { { point.x, point.y }, { point.x - width, point.y },
+                { point.x, point.y - height }, { point.x - width, point.y - height } };
+            for (int[] pos : positions) {
+                LabelGeneral label = new LabelGeneral(point, pos[0], pos[1]);
+                label.id = labels.size();
+                labels.add(label);
+            }
+        }
+        return labels;
+    }
+}
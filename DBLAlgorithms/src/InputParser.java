@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads an instance straight from the bytes of the input:
+ * <pre>
+ * placement model: 2pos
+ * width: 20
+ * height: 10
+ * number of points: 2
+ * 1 2
+ * 3 4
+ * </pre>
+ * Header lines can be left out, the points are read into int arrays without
+ * creating a String per line. Without a number of points line all points up to
+ * the end of the input are read.
+ */
+class InputParser {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    String model;
+    int width;
+    int height;
+    int numberOfPoints = -1;
+    int[] xs;
+    int[] ys;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private InputParser(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Parses a whole instance
+     * @param in the input, it is read until all points are read
+     * @return the parsed instance
+     * @throws IOException when reading fails or the input is not in the expected format
+     */
+    static InputParser parse(InputStream in) throws IOException {
+        InputParser parser = new InputParser(in);
+        parser.readHeader();
+        parser.readPoints();
+        return parser;
+    }
+
+    List<Point> points() {
+        List<Point> points = new ArrayList<>(numberOfPoints);
+        for (int i = 0; i < numberOfPoints; i++) {
+            points.add(new Point(xs[i], ys[i]));
+        }
+        return points;
+    }
+
+    private void readHeader() throws IOException {
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == -1 || c == '-' || (c >= '0' && c <= '9')) {
+                return;
+            }
+            String key = readKey();
+            switch (key) {
+                case "placement model":
+                    model = readWord();
+                    break;
+                case "width":
+                    width = readInt();
+                    break;
+                case "height":
+                    height = readInt();
+                    break;
+                case "number of points":
+                    numberOfPoints = readInt();
+                    break;
+                default:
+                    throw new IOException("Unknown header line: " + key);
+            }
+        }
+    }
+
+    private void readPoints() throws IOException {
+        if (numberOfPoints >= 0) {
+            xs = new int[numberOfPoints];
+            ys = new int[numberOfPoints];
+            for (int i = 0; i < numberOfPoints; i++) {
+                xs[i] = readInt();
+                ys[i] = readInt();
+            }
+            return;
+        }
+        IntList x = new IntList();
+        IntList y = new IntList();
+        while (true) {
+            skipWhitespace();
+            if (peek() == -1) {
+                break;
+            }
+            x.add(readInt());
+            y.add(readInt());
+        }
+        numberOfPoints = x.size();
+        xs = Arrays.copyOf(x.values, numberOfPoints);
+        ys = Arrays.copyOf(y.values, numberOfPoints);
+    }
+
+    //The text before the colon of a header line, the colon is skipped
+    private String readKey() throws IOException {
+        StringBuilder key = new StringBuilder();
+        int c;
+        while ((c = read()) != ':') {
+            if (c == -1 || c == '\n') {
+                throw new IOException("Expected a colon after " + key);
+            }
+            key.append((char) c);
+        }
+        return key.toString().trim();
+    }
+
+    private String readWord() throws IOException {
+        skipWhitespace();
+        StringBuilder word = new StringBuilder();
+        int c;
+        while ((c = peek()) > ' ') {
+            word.append((char) c);
+            position++;
+        }
+        return word.toString();
+    }
+
+    private int readInt() throws IOException {
+        skipWhitespace();
+        int c = read();
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+        if (c < '0' || c > '9') {
+            throw new IOException("Expected a number");
+        }
+        int value = c - '0';
+        while ((c = peek()) >= '0' && c <= '9') {
+            value = 10 * value + (c - '0');
+            position++;
+        }
+        return negative ? -value : value;
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && c <= ' ') {
+            position++;
+        }
+    }
+
+    //Next byte without consuming it, -1 at the end of the input
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+}
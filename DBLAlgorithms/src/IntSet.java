@@ -0,0 +1,59 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Set of the ints from 0 up to a capacity. The members are packed at the front of an array and
+ * every int knows its position in it, so adding, removing and picking a random member all take
+ * constant time. Removing moves the last member into the hole, the order of the members is not kept.
+ */
+class IntSet {
+
+    int[] members;
+    int[] position; //Position of every int in members, -1 if it is not in the set
+    int size;
+
+    public IntSet(int capacity) {
+        members = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    void add(int value) {
+        if (position[value] == -1) {
+            position[value] = size;
+            members[size++] = value;
+        }
+    }
+
+    void remove(int value) {
+        int at = position[value];
+        if (at != -1) {
+            int last = members[--size];
+            members[at] = last;
+            position[last] = at;
+            position[value] = -1;
+        }
+    }
+
+    boolean contains(int value) {
+        return position[value] != -1;
+    }
+
+    //Member at position i, for going over the set
+    int get(int i) {
+        return members[i];
+    }
+
+    //Uniformly random member, the set must not be empty
+    int pick(SplittableRandom random) {
+        return members[random.nextInt(size)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
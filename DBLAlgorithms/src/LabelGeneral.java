@@ -6,6 +6,7 @@ public class LabelGeneral extends Label {
     
     List<PointGeneral> points; //Points that own this label
     List<LabelGeneral> overlappingLabels; //Labels this are within 
+    int id; //Position in the list of labels of the solver, used by the ConflictGraph
     
     public LabelGeneral(PointGeneral point, int x, int y) {
         points = new ArrayList<>();
@@ -0,0 +1,122 @@
+import java.util.Arrays;
+
+/**
+ * Binary heap of label ids ordered on a priority per label, lowest first.
+ * Every label remembers its own slot in the heap, so removing a label, or re-adding
+ * it after its priority changed, costs O(log n) instead of the linear search
+ * java.util.PriorityQueue needs to find it.
+ * Sifting follows java.util.PriorityQueue.
+ */
+class LabelQueue {
+
+    private int[] heap;
+    private int size;
+    private final long[] priority;
+    private final int[] heapIndex; //Slot of every label, -1 if not queued
+
+    /**
+     * @param priority priority of every label, may change while a label is queued but
+     * the label then has to be removed and added again to restore the heap order
+     */
+    public LabelQueue(long[] priority) {
+        this.heap = new int[16];
+        this.size = 0;
+        this.priority = priority;
+        this.heapIndex = new int[priority.length];
+        Arrays.fill(heapIndex, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int label) {
+        return heapIndex[label] >= 0;
+    }
+
+    void add(int label) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size;
+        size++;
+        siftUp(i, label);
+    }
+
+    int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int result = heap[0];
+        heapIndex[result] = -1;
+        int n = --size;
+        int last = heap[n];
+        if (n > 0) {
+            siftDown(0, last);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the label from the queue
+     * @param label the label to remove
+     * @return true if the label was in the queue
+     */
+    boolean remove(int label) {
+        int i = heapIndex[label];
+        if (i < 0) {
+            return false;
+        }
+        heapIndex[label] = -1;
+        int s = --size;
+        if (s != i) {
+            int moved = heap[s];
+            siftDown(i, moved);
+            if (heap[i] == moved) {
+                siftUp(i, moved);
+            }
+        }
+        return true;
+    }
+
+    private void siftUp(int k, int label) {
+        long key = priority[label];
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            int e = heap[parent];
+            if (key >= priority[e]) {
+                break;
+            }
+            heap[k] = e;
+            heapIndex[e] = k;
+            k = parent;
+        }
+        heap[k] = label;
+        heapIndex[label] = k;
+    }
+
+    private void siftDown(int k, int label) {
+        long key = priority[label];
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && priority[c] > priority[heap[right]]) {
+                c = heap[child = right];
+            }
+            if (key <= priority[c]) {
+                break;
+            }
+            heap[k] = c;
+            heapIndex[c] = k;
+            k = child;
+        }
+        heap[k] = label;
+        heapIndex[label] = k;
+    }
+}
@@ -4,8 +4,33 @@ import java.util.List;
 
 abstract class LabelSolver {
     
+    LabelingContext context;
     int width;
     int height;
+    Deadline deadline;
+    int checkInterval = Deadline.CHECK_INTERVAL; //Power of two, lower for solvers with expensive iterations
+    
+    private int checks;
+    private boolean stopped;
+    
+    LabelSolver(LabelingContext context) {
+        this.context = context;
+        this.width = context.width;
+        this.height = context.height;
+        this.deadline = context.deadline;
+    }
+    
+    /**
+     * Check for the main loops, the deadline is only looked at once every checkInterval calls.
+     * Once it returns true it keeps returning true, the solver should then return the best labeling it has.
+     * @return true if the solver has to stop
+     */
+    boolean outOfTime() {
+        if (!stopped && (++checks & (checkInterval - 1)) == 0) {
+            stopped = deadline.expired();
+        }
+        return stopped;
+    }
     
     abstract List<PointData> getLabeledPoints2pos (List<Point> points);
     abstract List<PointData> getLabeledPoints4pos (List<Point> points);
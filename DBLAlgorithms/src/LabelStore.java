@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Candidate labels and their points kept in parallel primitive arrays.
+ * A label can be owned by several points and a point has several candidate labels,
+ * every (label, point) pair is an incidence that is stored once and seen from both sides:
+ * the owners of label l are owner[ownerStart[l]] up to owner[ownerStart[l + 1]],
+ * the labels of point p are the incidences labelSlot[labelStart[p]] up to labelSlot[labelStart[p + 1]].
+ * An incidence is unlinked when the label can no longer be used for that point.
+ */
+class LabelStore {
+
+    int labels;
+    int[] labelX;
+    int[] labelY;
+    boolean[] alive; //False once the label is deleted
+    int[] ownerStart;
+    int[] owner; //Point of every incidence, grouped by label
+    int[] slotLabel; //Label of every incidence
+    boolean[] linked; //Is the incidence still in use
+    int[] liveOwners; //Number of linked incidences per label
+    int[] overlapStart; //Overlapping labels as compressed adjacency arrays
+    int[] overlap;
+    int[] liveOverlaps; //Number of overlapping labels that are still alive
+
+    int points;
+    int[] pointX;
+    int[] pointY;
+    int[] labelStart;
+    int[] labelSlot; //Incidences grouped by point
+    int[] liveLabels; //Number of linked incidences per point
+    int[] placed; //Label placed for every point, -1 if none
+
+    private IntList incidences;
+    private int[] lastOwner; //Last point added as owner of every label
+
+    public LabelStore(int pointCapacity) {
+        labelX = new int[4 * pointCapacity + 1];
+        labelY = new int[4 * pointCapacity + 1];
+        lastOwner = new int[4 * pointCapacity + 1];
+        pointX = new int[pointCapacity + 1];
+        pointY = new int[pointCapacity + 1];
+        incidences = new IntList(8 * pointCapacity);
+    }
+
+    int addPoint(int x, int y) {
+        if (points == pointX.length) {
+            pointX = Arrays.copyOf(pointX, 2 * points);
+            pointY = Arrays.copyOf(pointY, 2 * points);
+        }
+        pointX[points] = x;
+        pointY[points] = y;
+        return points++;
+    }
+
+    int addLabel(int x, int y) {
+        if (labels == labelX.length) {
+            labelX = Arrays.copyOf(labelX, 2 * labels);
+            labelY = Arrays.copyOf(labelY, 2 * labels);
+            lastOwner = Arrays.copyOf(lastOwner, 2 * labels);
+        }
+        labelX[labels] = x;
+        labelY[labels] = y;
+        lastOwner[labels] = -1;
+        return labels++;
+    }
+
+    //Adds the point as owner of the label, adding the same owner twice in a row is ignored
+    void addOwner(int label, int point) {
+        if (lastOwner[label] == point) {
+            return;
+        }
+        lastOwner[label] = point;
+        incidences.add(label);
+        incidences.add(point);
+    }
+
+    /**
+     * Builds the incidence and overlap arrays, no labels, points or owners can be added afterwards
+     * @param context the run, gives the size of the labels
+     */
+    void finish(LabelingContext context) {
+        int count = incidences.size() / 2;
+        ownerStart = new int[labels + 1];
+        labelStart = new int[points + 1];
+        for (int i = 0; i < count; i++) {
+            ownerStart[incidences.get(2 * i) + 1]++;
+            labelStart[incidences.get(2 * i + 1) + 1]++;
+        }
+        for (int l = 0; l < labels; l++) {
+            ownerStart[l + 1] += ownerStart[l];
+        }
+        for (int p = 0; p < points; p++) {
+            labelStart[p + 1] += labelStart[p];
+        }
+        owner = new int[count];
+        slotLabel = new int[count];
+        labelSlot = new int[count];
+        int[] nextOwner = Arrays.copyOf(ownerStart, labels);
+        int[] nextLabel = Arrays.copyOf(labelStart, points);
+        for (int i = 0; i < count; i++) {
+            int label = incidences.get(2 * i);
+            int point = incidences.get(2 * i + 1);
+            int slot = nextOwner[label]++;
+            owner[slot] = point;
+            slotLabel[slot] = label;
+            labelSlot[nextLabel[point]++] = slot;
+        }
+        incidences = null;
+        lastOwner = null;
+
+        linked = new boolean[count];
+        Arrays.fill(linked, true);
+        liveOwners = new int[labels];
+        for (int l = 0; l < labels; l++) {
+            liveOwners[l] = ownerStart[l + 1] - ownerStart[l];
+        }
+        liveLabels = new int[points];
+        for (int p = 0; p < points; p++) {
+            liveLabels[p] = labelStart[p + 1] - labelStart[p];
+        }
+        placed = new int[points];
+        Arrays.fill(placed, -1);
+        alive = new boolean[labels];
+        Arrays.fill(alive, true);
+
+        ConflictGraph graph = ConflictGraph.build(Arrays.copyOf(labelX, labels), Arrays.copyOf(labelY, labels), context);
+        overlapStart = graph.offsets;
+        overlap = graph.neighbours;
+        liveOverlaps = new int[labels];
+        for (int l = 0; l < labels; l++) {
+            liveOverlaps[l] = graph.degree(l);
+        }
+    }
+
+    //Unlinks the incidence, so its label can no longer be used for its point
+    void unlink(int slot) {
+        if (linked[slot]) {
+            linked[slot] = false;
+            liveOwners[slotLabel[slot]]--;
+            liveLabels[owner[slot]]--;
+        }
+    }
+
+    /**
+     * The result for one point, it reads the placed label from the store
+     */
+    class PointView extends PointData {
+
+        final int point;
+
+        PointView(int point) {
+            super(pointX[point], pointY[point]);
+            this.point = point;
+        }
+
+        //Candidate of the placed label as numbered in CandidatePointData, -1 if none
+        int candidate() {
+            int label = placed[point];
+            if (label == -1) {
+                return -1;
+            }
+            return (x == labelX[label] ? 0 : 1) + (y == labelY[label] ? 0 : 2);
+        }
+
+        @Override
+        String getLabelInfo() {
+            int k = candidate();
+            return k == -1 ? "NIL" : CandidatePointData.INFO[k];
+        }
+
+        @Override
+        boolean hasLabel() {
+            return placed[point] != -1;
+        }
+
+        @Override
+        void writeLabelInfo(OutputWriter out) throws IOException {
+            int k = candidate();
+            out.writeBytes(k == -1 ? CandidatePointData.NIL : CandidatePointData.INFO_BYTES[k]);
+        }
+    }
+}
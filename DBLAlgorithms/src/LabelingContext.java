@@ -0,0 +1,69 @@
+import java.util.Random;
+
+/**
+ * Everything one labeling run needs to know about its instance and settings.
+ * Solvers, labels and points read it from here instead of from static state,
+ * so runs with different instances can be done at the same time.
+ */
+class LabelingContext {
+
+    static final String DEFAULT_INDEX = "sweep";
+    static final int DEFAULT_EXACT_LIMIT = 40;
+
+    final int width; //Width of the labels
+    final int height; //Height of the labels
+    final int numberOfPoints;
+    final Random random; //Source of randomness of the run, only to be used by one thread at a time
+    final String index; //How overlaps are found: sweep, grid, rtree or quadtree
+    final int exactLimit; //Components up to this many points are solved exactly
+    final Deadline deadline; //When the solvers have to stop
+
+    public LabelingContext(int width, int height, int numberOfPoints) {
+        this(width, height, numberOfPoints, new Random(), DEFAULT_INDEX, DEFAULT_EXACT_LIMIT);
+    }
+
+    public LabelingContext(int width, int height, int numberOfPoints, Random random, String index, int exactLimit) {
+        this(width, height, numberOfPoints, random, index, exactLimit, Deadline.none());
+    }
+
+    public LabelingContext(int width, int height, int numberOfPoints, Random random, String index, int exactLimit,
+            Deadline deadline) {
+        this.width = width;
+        this.height = height;
+        this.numberOfPoints = numberOfPoints;
+        this.random = random;
+        this.index = index;
+        this.exactLimit = exactLimit;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Context for solving a part of the instance, with its own source of randomness
+     * so the parts can be solved on different threads
+     * @param numberOfPoints number of points in the part
+     * @return the context of the part
+     */
+    LabelingContext forPoints(int numberOfPoints) {
+        return forPoints(numberOfPoints, random.nextLong());
+    }
+
+    /**
+     * Context for solving a part of the instance with a seed drawn beforehand, for parts
+     * that are set up on other threads than the one that owns random
+     * @param numberOfPoints number of points in the part
+     * @param seed seed of the randomness of the part
+     * @return the context of the part
+     */
+    LabelingContext forPoints(int numberOfPoints, long seed) {
+        return new LabelingContext(width, height, numberOfPoints, new Random(seed), index, exactLimit, deadline);
+    }
+
+    /**
+     * The same run with another deadline
+     * @param deadline when the solvers have to stop
+     * @return the new context
+     */
+    LabelingContext withDeadline(Deadline deadline) {
+        return new LabelingContext(width, height, numberOfPoints, random, index, exactLimit, deadline);
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact solver for the 2pos and 4pos models as a partial MaxSAT instance on SatSolver.
+ * Every candidate is a variable. Two overlapping candidates give the hard clause that they are not
+ * both chosen, every point gives the soft clause that one of its candidates is chosen. The soft
+ * clause of a point is made hard with a relaxation variable that is set when the point has no label,
+ * and a totalizer counts the relaxation variables. The search is linear from the greedy labeling
+ * down: as long as a labeling is found the count is bounded below its NILs and the solver is run
+ * again, the learned clauses stay. When it can not find one any more the last labeling is optimal.
+ * The totalizer only counts up to the NILs of the greedy labeling, everything above is the same.
+ */
+class MaxSatSolver extends LabelSolver {
+
+    int points;
+    int candidates; //Per point
+    int[] choice; //Candidate of every point in the best labeling so far, -1 if none
+    ConflictGraph graph;
+    int[] local; //Position of every point in its component
+    boolean optimal; //Was the last labeling proven optimal
+
+    public MaxSatSolver(LabelingContext context) {
+        super(context);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints2pos(List<Point> points) {
+        return solve(points, 2);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints4pos(List<Point> points) {
+        return solve(points, 4);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints1slider(List<Point> points) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    List<PointData> solve(List<Point> points, int candidates) {
+        this.points = points.size();
+        this.candidates = candidates;
+        int n = candidates * this.points;
+
+        choice = GreedyGeneral.chooseCandidates(context, points, candidates);
+        int nils = 0;
+        for (int p = 0; p < this.points; p++) {
+            if (choice[p] == -1) {
+                nils++;
+            } else {
+                choice[p] += candidates * p;
+            }
+        }
+        optimal = true;
+        if (nils == 0 || outOfTime()) {
+            optimal = nils == 0;
+            return result(points);
+        }
+
+        graph = ConflictGraph.ofCandidates(points, candidates, context);
+
+        //Points whose labels can not overlap are independent, one bound over all of them would tie them together
+        int[] parent = DecompositionSolver.newUnionFind(this.points);
+        for (int c = 0; c < n; c++) {
+            for (int i = graph.offsets[c]; i < graph.offsets[c + 1]; i++) {
+                DecompositionSolver.union(parent, c / candidates, graph.neighbours[i] / candidates);
+            }
+        }
+        int[] start = new int[this.points + 1];
+        for (int p = 0; p < this.points; p++) {
+            start[DecompositionSolver.find(parent, p) + 1]++;
+        }
+        for (int p = 0; p < this.points; p++) {
+            start[p + 1] += start[p];
+        }
+        int[] members = new int[this.points];
+        int[] next = Arrays.copyOf(start, this.points);
+        for (int p = 0; p < this.points; p++) {
+            members[next[DecompositionSolver.find(parent, p)]++] = p;
+        }
+        local = new int[this.points];
+        for (int r = 0; r < this.points; r++) {
+            if (outOfTime()) {
+                optimal = false;
+                break;
+            }
+            if (start[r + 1] - start[r] == 1) {
+                //The candidates of a point alone in its component overlap nothing
+                choice[members[start[r]]] = candidates * members[start[r]];
+            } else if (start[r + 1] - start[r] > 1) {
+                solveComponent(Arrays.copyOfRange(members, start[r], start[r + 1]));
+            }
+        }
+        return result(points);
+    }
+
+    /**
+     * Improves the labeling of the points of one component until it is optimal or the time is up
+     * @param members the points
+     */
+    void solveComponent(int[] members) {
+        int m = members.length;
+        int nils = 0;
+        for (int i = 0; i < m; i++) {
+            local[members[i]] = i;
+            if (choice[members[i]] == -1) {
+                nils++;
+            }
+        }
+        if (nils == 0) {
+            return;
+        }
+
+        //Candidate k of member i is variable candidates * i + k + 1, its relaxation variable is candidates * m + i + 1
+        SatSolver sat = new SatSolver(deadline);
+        for (int v = 0; v < (candidates + 1) * m; v++) {
+            sat.newVar();
+        }
+        int[] relaxed = new int[m];
+        for (int i = 0; i < m; i++) {
+            int p = members[i];
+            int[] clause = new int[candidates + 1];
+            for (int k = 0; k < candidates; k++) {
+                int c = candidates * p + k;
+                clause[k] = candidates * i + k + 1;
+                sat.setPhase(clause[k], choice[p] == c);
+                for (int j = graph.offsets[c]; j < graph.offsets[c + 1]; j++) {
+                    int d = graph.neighbours[j];
+                    if (c < d) {
+                        sat.addClause(-clause[k], -(candidates * local[d / candidates] + d % candidates + 1));
+                    }
+                }
+            }
+            relaxed[i] = candidates * m + i + 1;
+            clause[candidates] = relaxed[i];
+            sat.addClause(clause);
+            sat.setPhase(relaxed[i], choice[p] == -1);
+        }
+        int[] atLeast = totalizer(sat, relaxed, 0, m, nils);
+
+        while (nils > 0) {
+            //At most nils - 1 points without a label
+            sat.addClause(-atLeast[nils - 1]);
+            int outcome = sat.solve();
+            if (outcome != SatSolver.SAT) {
+                optimal &= outcome == SatSolver.UNSAT;
+                return;
+            }
+            nils = 0;
+            for (int i = 0; i < m; i++) {
+                int p = members[i];
+                choice[p] = -1;
+                for (int k = 0; k < candidates && choice[p] == -1; k++) {
+                    if (sat.modelValue(candidates * i + k + 1)) {
+                        choice[p] = candidates * p + k;
+                    }
+                }
+                if (choice[p] == -1) {
+                    nils++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the true variables from lo up to hi in unary: output i is true if at least i + 1 of them
+     * are. Only the implication that way is encoded, which is all an upper bound needs.
+     * @param limit number of outputs, a count above it sets the last output
+     * @return the outputs
+     */
+    static int[] totalizer(SatSolver sat, int[] variables, int lo, int hi, int limit) {
+        if (hi - lo == 1) {
+            return new int[] {variables[lo]};
+        }
+        int mid = (lo + hi) >>> 1;
+        int[] left = totalizer(sat, variables, lo, mid, limit);
+        int[] right = totalizer(sat, variables, mid, hi, limit);
+        int[] out = new int[Math.min(left.length + right.length, limit)];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = sat.newVar();
+        }
+        //left[i - 1] and right[j - 1] give i + j, where 0 stands for nothing
+        for (int i = 0; i <= left.length; i++) {
+            for (int j = 0; j <= right.length; j++) {
+                if (i + j == 0) {
+                    continue;
+                }
+                int sum = Math.min(i + j, out.length);
+                if (i == 0) {
+                    sat.addClause(-right[j - 1], out[sum - 1]);
+                } else if (j == 0) {
+                    sat.addClause(-left[i - 1], out[sum - 1]);
+                } else {
+                    sat.addClause(-left[i - 1], -right[j - 1], out[sum - 1]);
+                }
+            }
+        }
+        return out;
+    }
+
+    List<PointData> result(List<Point> points) {
+        List<PointData> result = new ArrayList<>(this.points);
+        for (int p = 0; p < this.points; p++) {
+            CandidatePointData point = new CandidatePointData(points.get(p).x, points.get(p).y);
+            point.candidate = choice[p] == -1 ? -1 : choice[p] % candidates;
+            result.add(point);
+        }
+        return result;
+    }
+}
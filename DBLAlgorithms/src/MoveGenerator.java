@@ -0,0 +1,33 @@
+/**
+ * Moves one label of ForceDirectedSimulatedAnnealing to a new position and updates the forces,
+ * the annealing puts it back when the move is rejected.
+ */
+interface MoveGenerator {
+
+    //Slides the label towards where its forces are in balance, jumps to a random position if it cannot get there
+    MoveGenerator EQUILIBRIUM_SLIDE = (solver, label) -> solver.equilibriumSlide(label);
+    //Jumps to a random position
+    MoveGenerator RANDOM_PLACE = (solver, label) -> solver.randomPlace(label);
+    //Jumps into a gap between the placed neighbours, to a random position if there is none
+    MoveGenerator FREE_GAP = (solver, label) -> solver.freeGapPlace(label);
+
+    void move(ForceDirectedSimulatedAnnealing solver, ForceLabel label);
+
+    /**
+     * Gives a move by name
+     * @param name slide, random or gap
+     * @return the move
+     */
+    static MoveGenerator create(String name) {
+        switch (name) {
+            case "slide":
+                return EQUILIBRIUM_SLIDE;
+            case "random":
+                return RANDOM_PLACE;
+            case "gap":
+                return FREE_GAP;
+            default:
+                throw new IllegalArgumentException("Unknown move: " + name);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes the solution through one reusable byte buffer, numbers are formatted by hand
+ * so writing a point does not create any Strings:
+ * <pre>
+ * placement model: 2pos
+ * width: 20
+ * height: 10
+ * number of points: 2
+ * number of labels: 1
+ * 1 2 NE
+ * 3 4 NIL
+ * </pre>
+ */
+class OutputWriter {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    //Powers of ten that are exact as a double, for formatting doubles
+    private static final double[] POWERS = new double[16];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = 10 * POWERS[i - 1];
+        }
+    }
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[20];
+    private int position;
+    private long written;
+
+    public OutputWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    //Writer to standard output that does not go through System.out
+    static OutputWriter stdout() {
+        return new OutputWriter(new FileOutputStream(FileDescriptor.out));
+    }
+
+    /**
+     * Writes the header and a line for every point
+     * @param model the placement model
+     * @param width width of the labels
+     * @param height height of the labels
+     * @param points the labeled points
+     * @throws IOException when writing fails
+     */
+    void writeSolution(String model, int width, int height, List<? extends PointData> points) throws IOException {
+        int labels = 0;
+        for (PointData point : points) {
+            if (point.hasLabel()) {
+                labels++;
+            }
+        }
+        writeAscii("placement model: ").writeAscii(model).newLine();
+        writeAscii("width: ").writeInt(width).newLine();
+        writeAscii("height: ").writeInt(height).newLine();
+        writeAscii("number of points: ").writeInt(points.size()).newLine();
+        writeAscii("number of labels: ").writeInt(labels).newLine();
+        for (PointData point : points) {
+            writeInt(point.x).writeByte(' ').writeInt(point.y).writeByte(' ');
+            point.writeLabelInfo(this);
+            newLine();
+        }
+    }
+
+    OutputWriter writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+        return this;
+    }
+
+    OutputWriter writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+        }
+        if (bytes.length > buffer.length) {
+            out.write(bytes);
+            written += bytes.length;
+        } else {
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+        return this;
+    }
+
+    //Only for text that is known to be ASCII, like the header
+    OutputWriter writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+        return this;
+    }
+
+    OutputWriter newLine() throws IOException {
+        return writeByte('\n');
+    }
+
+    OutputWriter writeInt(int value) throws IOException {
+        return writeLong(value);
+    }
+
+    OutputWriter writeLong(long value) throws IOException {
+        if (value < 0) {
+            writeByte('-');
+            if (value == Long.MIN_VALUE) {
+                return writeAscii("9223372036854775808");
+            }
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (length > 0) {
+            writeByte(digits[--length]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the shortest decimal with at most 15 decimals that reads back as exactly the same double,
+     * written like String.valueOf so whole numbers get ".0". Other doubles fall back on String.valueOf.
+     * @param value the number to write
+     * @return this writer
+     * @throws IOException when writing fails
+     */
+    OutputWriter writeDouble(double value) throws IOException {
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            writeByte('-');
+            value = -value;
+        }
+        if (value < 1e3) {
+            for (int decimals = 1; decimals < POWERS.length; decimals++) {
+                long scaled = Math.round(value * POWERS[decimals]);
+                //Both are exact doubles, so the division is rounded the same way as reading the decimal
+                if (scaled < (1L << 53) && scaled / POWERS[decimals] == value) {
+                    writeLong(scaled / (long) POWERS[decimals]).writeByte('.');
+                    long fraction = scaled % (long) POWERS[decimals];
+                    for (int i = decimals - 1; i >= 0; i--) {
+                        writeByte('0' + (int) (fraction / (long) POWERS[i] % 10));
+                    }
+                    return this;
+                }
+            }
+        }
+        return writeAscii(String.valueOf(value));
+    }
+
+    //Total number of bytes written so far, including the ones still in the buffer
+    long bytesWritten() {
+        return written + position;
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        written += position;
+        position = 0;
+    }
+}
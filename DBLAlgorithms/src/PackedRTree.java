@@ -0,0 +1,160 @@
+import java.util.Arrays;
+
+/**
+ * Static R-tree over labels, bulk loaded with Sort-Tile-Recursive.
+ * All labels have the same size so only their left-bottom corners are stored.
+ * Nodes are kept level by level in flat arrays, the children of node i on a level
+ * are nodes i * NODE_SIZE up to (i + 1) * NODE_SIZE on the level below.
+ */
+class PackedRTree implements SpatialIndex {
+
+    static final int NODE_SIZE = 16;
+
+    private final int width;
+    private final int height;
+
+    //Labels in tree order
+    private final int[] ids;
+    private final int[] xs;
+    private final int[] ys;
+
+    //Bounding boxes of the left-bottom corners below each node, leaves first and the root last
+    private final int[] minX;
+    private final int[] minY;
+    private final int[] maxX;
+    private final int[] maxY;
+    private final int[] levelStart; //First node of every level, plus the total number of nodes
+
+    private final int[] stack;
+
+    public PackedRTree(int[] x, int[] y, int width, int height) {
+        this.width = width;
+        this.height = height;
+        int n = x.length;
+        ids = new int[n];
+        xs = new int[n];
+        ys = new int[n];
+
+        //Sort on x, cut into vertical slices and sort every slice on y
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) x[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+        int slices = (int) Math.ceil(Math.sqrt(leaves));
+        int sliceSize = slices * NODE_SIZE;
+        for (int start = 0; start < n; start += sliceSize) {
+            int end = Math.min(start + sliceSize, n);
+            for (int i = start; i < end; i++) {
+                int id = (int) keys[i];
+                keys[i] = ((long) y[id] << 32) | id;
+            }
+            Arrays.sort(keys, start, end);
+        }
+        for (int i = 0; i < n; i++) {
+            int id = (int) keys[i];
+            ids[i] = id;
+            xs[i] = x[id];
+            ys[i] = y[id];
+        }
+
+        //Count the nodes on every level
+        int levels = 1;
+        int total = leaves;
+        for (int count = leaves; count > 1; count = (count + NODE_SIZE - 1) / NODE_SIZE) {
+            levels++;
+            total += (count + NODE_SIZE - 1) / NODE_SIZE;
+        }
+        levelStart = new int[levels + 1];
+        minX = new int[total];
+        minY = new int[total];
+        maxX = new int[total];
+        maxY = new int[total];
+
+        //Leaves
+        for (int node = 0; node < leaves; node++) {
+            int from = node * NODE_SIZE;
+            int to = Math.min(from + NODE_SIZE, n);
+            minX[node] = Integer.MAX_VALUE;
+            minY[node] = Integer.MAX_VALUE;
+            maxX[node] = Integer.MIN_VALUE;
+            maxY[node] = Integer.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                minX[node] = Math.min(minX[node], xs[i]);
+                minY[node] = Math.min(minY[node], ys[i]);
+                maxX[node] = Math.max(maxX[node], xs[i]);
+                maxY[node] = Math.max(maxY[node], ys[i]);
+            }
+        }
+        levelStart[1] = leaves;
+
+        //Internal levels
+        for (int level = 1; level < levels; level++) {
+            int childStart = levelStart[level - 1];
+            int childCount = levelStart[level] - childStart;
+            int count = (childCount + NODE_SIZE - 1) / NODE_SIZE;
+            for (int i = 0; i < count; i++) {
+                int node = levelStart[level] + i;
+                int from = childStart + i * NODE_SIZE;
+                int to = Math.min(from + NODE_SIZE, childStart + childCount);
+                minX[node] = Integer.MAX_VALUE;
+                minY[node] = Integer.MAX_VALUE;
+                maxX[node] = Integer.MIN_VALUE;
+                maxY[node] = Integer.MIN_VALUE;
+                for (int child = from; child < to; child++) {
+                    minX[node] = Math.min(minX[node], minX[child]);
+                    minY[node] = Math.min(minY[node], minY[child]);
+                    maxX[node] = Math.max(maxX[node], maxX[child]);
+                    maxY[node] = Math.max(maxY[node], maxY[child]);
+                }
+            }
+            levelStart[level + 1] = levelStart[level] + count;
+        }
+
+        stack = new int[2 * (levels * NODE_SIZE + 1)];
+    }
+
+    /**
+     * Not thread safe, the traversal stack is shared between queries.
+     */
+    @Override
+    public void query(int x, int y, IntList result) {
+        if (ids.length == 0) {
+            return;
+        }
+        int levels = levelStart.length - 1;
+        int xmin = x - width;
+        int xmax = x + width;
+        int ymin = y - height;
+        int ymax = y + height;
+
+        //Stack holds (level, node) pairs, starting at the root
+        int top = 0;
+        stack[top++] = levels - 1;
+        stack[top++] = levelStart[levels - 1];
+        while (top > 0) {
+            int node = stack[--top];
+            int level = stack[--top];
+            if (maxX[node] <= xmin || minX[node] >= xmax || maxY[node] <= ymin || minY[node] >= ymax) {
+                continue;
+            }
+            int index = node - levelStart[level];
+            int from = index * NODE_SIZE;
+            if (level == 0) {
+                int to = Math.min(from + NODE_SIZE, ids.length);
+                for (int i = from; i < to; i++) {
+                    if (xs[i] > xmin && xs[i] < xmax && ys[i] > ymin && ys[i] < ymax) {
+                        result.add(ids[i]);
+                    }
+                }
+            } else {
+                int to = Math.min(from + NODE_SIZE, levelStart[level] - levelStart[level - 1]);
+                for (int i = from; i < to; i++) {
+                    stack[top++] = level - 1;
+                    stack[top++] = levelStart[level - 1] + i;
+                }
+            }
+        }
+    }
+}
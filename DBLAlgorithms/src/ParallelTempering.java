@@ -0,0 +1,130 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replica exchange for 1slider: a number of force directed annealings of the same points run on
+ * their own threads, every one a ladder step hotter than the one before. They anneal in rounds,
+ * after every round neighbouring replicas on the ladder swap temperatures by the Metropolis
+ * criterion, so a labeling that got stuck can be heated up again and a good one cools down.
+ * Swapping the temperatures and schedules instead of the labelings gives the same chain and only
+ * moves two numbers. When all replicas are done, or time is up, the labeling with the most labels is returned.
+ */
+public class ParallelTempering extends LabelSolver {
+
+    static final double LADDER = 2.0; //Temperature of a replica over that of the one below it
+    static final int MIN_ROUND = 1000; //Moves per replica in a round at the least, a round is one move per point otherwise
+
+    int replicas;
+    ForceDirectedSimulatedAnnealing[] ladder; //The replicas from cold to hot
+    SplittableRandom random;
+    int swaps; //Swaps that were accepted, for benchmarks
+
+    public ParallelTempering(LabelingContext context) {
+        this(context, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelTempering(LabelingContext context, int replicas) {
+        super(context);
+        this.replicas = replicas;
+        random = new SplittableRandom(context.random.nextLong());
+    }
+
+    @Override
+    List<PointData> getLabeledPoints1slider(List<Point> points) {
+        int n = points.size();
+        ladder = new ForceDirectedSimulatedAnnealing[replicas];
+        for (int i = 0; i < replicas; i++) {
+            ladder[i] = new ForceDirectedSimulatedAnnealing(context.forPoints(n));
+            ladder[i].start(points);
+            ladder[i].temperature *= Math.pow(LADDER, i);
+            ladder[i].schedule.start(ladder[i].temperature);
+        }
+        int round = Math.max(MIN_ROUND, n);
+        ExecutorService executor = Executors.newFixedThreadPool(replicas, runnable -> {
+            Thread thread = new Thread(runnable, "replica");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>(replicas);
+            for (ForceDirectedSimulatedAnnealing replica : ladder) {
+                tasks.add(() -> replica.run(round));
+            }
+            boolean done = false;
+            for (int turn = 0; !done && !deadline.expired(); turn++) {
+                done = true;
+                for (Future<Boolean> future : executor.invokeAll(tasks)) {
+                    done &= future.get();
+                }
+                exchange(turn & 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<PointData> best = null;
+        int labels = -1;
+        for (ForceDirectedSimulatedAnnealing replica : ladder) {
+            List<PointData> result = replica.finish();
+            int count = SolverPortfolio.countLabels(result);
+            if (count > labels) {
+                best = result;
+                labels = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tries to swap the replicas at i and i + 1 for every other i from first on.
+     * The colder one gets the other labeling with probability exp((1 / cold - 1 / hot) * (its energy - other energy))
+     * @param first 0 or 1, alternated between the rounds
+     */
+    void exchange(int first) {
+        for (int i = first; i + 1 < replicas; i += 2) {
+            ForceDirectedSimulatedAnnealing cold = ladder[i];
+            ForceDirectedSimulatedAnnealing hot = ladder[i + 1];
+            if (cold.finished || hot.finished) {
+                continue;
+            }
+            double delta = (1 / cold.temperature - 1 / hot.temperature) * (energy(cold) - energy(hot));
+            if (delta >= 0 || random.nextDouble() < Math.exp(delta)) {
+                double temperature = cold.temperature;
+                cold.temperature = hot.temperature;
+                hot.temperature = temperature;
+                CoolingSchedule schedule = cold.schedule;
+                cold.schedule = hot.schedule;
+                hot.schedule = schedule;
+                ladder[i] = hot;
+                ladder[i + 1] = cold;
+                swaps++;
+            }
+        }
+    }
+
+    //The forces of a replica, a removed label counts as one that completely overlaps another
+    double energy(ForceDirectedSimulatedAnnealing replica) {
+        double removed = replica.DEFAULT_FORCE_FAKT_OVERLAPPING * width + replica.DEFAULT_OVERLAPPING_PENALTY;
+        return replica.overallForce + replica.nRemoved * removed;
+    }
+
+    @Override
+    List<PointData> getLabeledPoints2pos(List<Point> points) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    List<PointData> getLabeledPoints4pos(List<Point> points) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Compares InputParser with reading the same input line by line with a Scanner.
+ * Usage: java ParserBenchmark [number of points]
+ */
+public class ParserBenchmark {
+
+    static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        byte[] input = randomInput(n, new Random(n));
+        System.out.println("Input of " + n + " points, " + input.length / 1024 + " kB");
+        for (int run = 0; run < RUNS; run++) {
+            long time1 = System.nanoTime();
+            InputParser parser = InputParser.parse(new ByteArrayInputStream(input));
+            long time2 = System.nanoTime();
+            List<Point> points = scan(input);
+            long time3 = System.nanoTime();
+            if (parser.numberOfPoints != points.size()) {
+                throw new IllegalStateException("Parsers disagree on the number of points");
+            }
+            System.out.println("InputParser: " + (time2 - time1) / 1000000 + " ms, Scanner: " + (time3 - time2) / 1000000 + " ms");
+        }
+    }
+
+    //The way LabelPlacer used to read its input
+    static List<Point> scan(byte[] input) {
+        Scanner sc = new Scanner(new ByteArrayInputStream(input));
+        sc.nextLine();
+        sc.nextLine();
+        sc.nextLine();
+        int n = Integer.parseInt(sc.nextLine().substring(18));
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String[] line = sc.nextLine().split(" ");
+            points.add(new Point(Integer.parseInt(line[0]), Integer.parseInt(line[1])));
+        }
+        return points;
+    }
+
+    static byte[] randomInput(int n, Random random) {
+        StringBuilder input = new StringBuilder(12 * n + 100);
+        input.append("placement model: 4pos\nwidth: 20\nheight: 10\nnumber of points: ").append(n).append('\n');
+        for (int i = 0; i < n; i++) {
+            input.append(random.nextInt(10000)).append(' ').append(random.nextInt(10000)).append('\n');
+        }
+        return input.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -7,4 +7,18 @@ public class Point {
         this.x = x;
         this.y = y;
     }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Point)) {
+            return false;
+        }
+        Point other = (Point) o;
+        return x == other.x && y == other.y;
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
 }
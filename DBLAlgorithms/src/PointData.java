@@ -1,4 +1,6 @@
 
+import java.io.IOException;
+
 abstract class PointData {
     int x;
     int y;
@@ -9,4 +11,13 @@ abstract class PointData {
     }
     
     abstract String getLabelInfo();
+    
+    boolean hasLabel() {
+        return !getLabelInfo().equals("NIL");
+    }
+    
+    //Writes the label info, subclasses can do this without creating a String
+    void writeLabelInfo(OutputWriter out) throws IOException {
+        out.writeAscii(getLabelInfo());
+    }
 }
@@ -3,7 +3,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 
-class QuadTree {
+class QuadTree implements SpatialIndex {
     private Node root;
     private int width;
     private int height;
@@ -80,5 +80,15 @@ class QuadTree {
         if (xmax >= h.x &&  ymin < h.y) query2D(h.SE, rect, result);
         if (xmax >= h.x && ymax >= h.y) query2D(h.NE, rect, result);
     }
+
+    @Override
+    public void query(int x, int y, IntList result) {
+        Interval2D<Integer> rect = new Interval2D<Integer>(
+                new Interval<Integer>(x, x + width),
+                new Interval<Integer>(y, y + height));
+        for (LabelGeneral label : query2D(rect)) {
+            result.add(label.id);
+        }
+    }
     
 }
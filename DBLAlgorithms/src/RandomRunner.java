@@ -7,10 +7,10 @@ public class RandomRunner {
 
     static List<Point> list = new ArrayList<>();
     
-    static List<Point> run() {
+    static List<Point> run(int numberOfPoints) {
         int i = 0;
         
-            while (i < Globals.numberOfPoints) {
+            while (i < numberOfPoints) {
                     int randX = StdRandom.uniform(10000);
                     int randY = StdRandom.uniform(10000);   
                     if (!list.contains(new Point(randX, randY))) {
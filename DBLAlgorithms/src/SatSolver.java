@@ -0,0 +1,413 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conflict driven clause learning SAT solver for the exact solvers, in the style of MiniSat:
+ * two watched literals per clause, first-UIP learning with non-chronological backjumping,
+ * VSIDS variable activities in a heap, saved phases and restarts on the Luby sequence.
+ * Clauses can be added between calls to solve and the learned clauses are kept, so a series of
+ * ever stronger instances can be solved incrementally.
+ * Literals are given as in DIMACS, variable v is v and its negation is -v, variables start at 1.
+ * Inside, literal 2v is v and 2v + 1 is its negation.
+ */
+class SatSolver {
+
+    static final int SAT = 1;
+    static final int UNSAT = -1;
+    static final int UNKNOWN = 0; //The deadline passed
+    static final int RESTART_BASE = 100; //Conflicts per step of the Luby sequence
+    static final double DECAY = 0.95; //Activities of variables that are not bumped fade by this factor per conflict
+
+    Deadline deadline;
+    boolean ok = true; //False once the clauses are known to be unsatisfiable
+    long conflicts;
+
+    int vars;
+    List<int[]> clauses = new ArrayList<>(); //The literal at position 0 of a reason clause is the one it implied
+    IntList[] watches = new IntList[2]; //Clauses that watch the literal, they are looked at when it becomes false
+    byte[] value = new byte[2]; //Per literal: 1 true, -1 false, 0 unassigned
+    int[] level = new int[1];
+    int[] reason = new int[1]; //Clause that implied the variable, -1 for decisions and units
+    boolean[] phase = new boolean[1]; //Last value of every variable, decisions try it first
+    boolean[] model = new boolean[1]; //Value of every variable in the last solution
+    int[] trail = new int[1];
+    int trailSize;
+    int queueHead; //Literals on the trail before this are propagated
+    IntList levelStart = new IntList(); //Trail position where every decision level starts
+
+    //Variable activities in a binary max heap
+    double[] activity = new double[1];
+    double increment = 1;
+    int[] heap = new int[1];
+    int heapSize;
+    int[] heapIndex = new int[1]; //Position of every variable in the heap, -1 if it is not in it
+
+    //Scratch space for analyze
+    boolean[] seen = new boolean[1];
+    IntList learnt = new IntList();
+
+    SatSolver(Deadline deadline) {
+        this.deadline = deadline;
+        watches[0] = new IntList();
+        watches[1] = new IntList();
+    }
+
+    int newVar() {
+        int v = ++vars;
+        if (v == level.length) {
+            int size = 2 * v;
+            value = Arrays.copyOf(value, 2 * size);
+            watches = Arrays.copyOf(watches, 2 * size);
+            level = Arrays.copyOf(level, size);
+            reason = Arrays.copyOf(reason, size);
+            phase = Arrays.copyOf(phase, size);
+            model = Arrays.copyOf(model, size);
+            trail = Arrays.copyOf(trail, size);
+            activity = Arrays.copyOf(activity, size);
+            heap = Arrays.copyOf(heap, size);
+            heapIndex = Arrays.copyOf(heapIndex, size);
+            seen = Arrays.copyOf(seen, size);
+        }
+        watches[2 * v] = new IntList(4);
+        watches[2 * v + 1] = new IntList(4);
+        reason[v] = -1;
+        heapIndex[v] = -1;
+        insert(v);
+        return v;
+    }
+
+    //Value the next decision on the variable tries first
+    void setPhase(int v, boolean phase) {
+        this.phase[v] = phase;
+    }
+
+    //Value of the variable in the last solution
+    boolean modelValue(int v) {
+        return model[v];
+    }
+
+    /**
+     * Adds a clause, only between calls to solve
+     * @param literals the clause, in DIMACS form
+     * @return false if the clauses are now known to be unsatisfiable
+     */
+    boolean addClause(int... literals) {
+        if (!ok) {
+            return false;
+        }
+        int[] clause = new int[literals.length];
+        int size = 0;
+        for (int literal : literals) {
+            int lit = literal > 0 ? 2 * literal : -2 * literal + 1;
+            if (value[lit] == 1) {
+                return true; //Already true
+            }
+            if (value[lit] == -1) {
+                continue; //Can never be true
+            }
+            boolean duplicate = false;
+            for (int i = 0; i < size; i++) {
+                if (clause[i] == (lit ^ 1)) {
+                    return true; //Always true
+                }
+                duplicate |= clause[i] == lit;
+            }
+            if (!duplicate) {
+                clause[size++] = lit;
+            }
+        }
+        if (size == 0) {
+            ok = false;
+        } else if (size == 1) {
+            assign(clause[0], -1);
+            ok = propagate() == -1;
+        } else {
+            attach(Arrays.copyOf(clause, size));
+        }
+        return ok;
+    }
+
+    /**
+     * Looks for values of the variables that make every clause true
+     * @return SAT, then modelValue gives the solution, UNSAT, or UNKNOWN when the deadline passed
+     */
+    int solve() {
+        if (!ok) {
+            return UNSAT;
+        }
+        int restarts = 0;
+        long restartConflicts = RESTART_BASE * luby(restarts);
+        long sinceRestart = 0;
+        while (true) {
+            int conflict = propagate();
+            if (conflict != -1) {
+                conflicts++;
+                sinceRestart++;
+                if (levelStart.size() == 0) {
+                    ok = false;
+                    return UNSAT;
+                }
+                int backjump = analyze(conflict);
+                backtrack(backjump);
+                if (learnt.size() == 1) {
+                    assign(learnt.get(0), -1);
+                } else {
+                    int c = attach(Arrays.copyOf(learnt.values, learnt.size()));
+                    assign(learnt.get(0), c);
+                }
+                increment /= DECAY;
+                if ((conflicts & 15) == 0 && deadline.expired()) {
+                    backtrack(0);
+                    return UNKNOWN;
+                }
+            } else if (sinceRestart >= restartConflicts) {
+                backtrack(0);
+                restarts++;
+                restartConflicts = RESTART_BASE * luby(restarts);
+                sinceRestart = 0;
+            } else {
+                int v = nextVariable();
+                if (v == -1) {
+                    for (int u = 1; u <= vars; u++) {
+                        model[u] = value[2 * u] == 1;
+                    }
+                    backtrack(0);
+                    return SAT;
+                }
+                levelStart.add(trailSize);
+                assign(phase[v] ? 2 * v : 2 * v + 1, -1);
+            }
+        }
+    }
+
+    int attach(int[] clause) {
+        int c = clauses.size();
+        clauses.add(clause);
+        watches[clause[0]].add(c);
+        watches[clause[1]].add(c);
+        return c;
+    }
+
+    void assign(int lit, int from) {
+        int v = lit >> 1;
+        value[lit] = 1;
+        value[lit ^ 1] = -1;
+        level[v] = levelStart.size();
+        reason[v] = from;
+        trail[trailSize++] = lit;
+    }
+
+    //Unit propagation over the watches, returns a clause with only false literals or -1
+    int propagate() {
+        while (queueHead < trailSize) {
+            int falseLit = trail[queueHead++] ^ 1;
+            IntList list = watches[falseLit];
+            int[] ws = list.values;
+            int i = 0;
+            int j = 0;
+            int size = list.size();
+            while (i < size) {
+                int c = ws[i++];
+                int[] clause = clauses.get(c);
+                if (clause[0] == falseLit) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLit;
+                }
+                if (value[clause[0]] == 1) {
+                    ws[j++] = c;
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < clause.length; k++) {
+                    if (value[clause[k]] != -1) {
+                        clause[1] = clause[k];
+                        clause[k] = falseLit;
+                        watches[clause[1]].add(c);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+                ws[j++] = c;
+                if (value[clause[0]] == -1) {
+                    while (i < size) {
+                        ws[j++] = ws[i++];
+                    }
+                    list.size = j;
+                    queueHead = trailSize;
+                    return c;
+                }
+                assign(clause[0], c);
+            }
+            list.size = j;
+        }
+        return -1;
+    }
+
+    /**
+     * First-UIP conflict analysis, the learned clause is left in learnt with the asserting literal
+     * first and a literal of the backjump level second
+     * @param conflict clause with only false literals
+     * @return the level to backjump to
+     */
+    int analyze(int conflict) {
+        int current = levelStart.size();
+        learnt.clear();
+        learnt.add(-1);
+        int open = 0; //Literals of the current level that are seen but not resolved yet
+        int lit = -1;
+        int index = trailSize - 1;
+        do {
+            int[] clause = clauses.get(conflict);
+            for (int k = lit == -1 ? 0 : 1; k < clause.length; k++) {
+                int q = clause[k];
+                int v = q >> 1;
+                if (!seen[v] && level[v] > 0) {
+                    bump(v);
+                    seen[v] = true;
+                    if (level[v] >= current) {
+                        open++;
+                    } else {
+                        learnt.add(q);
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            lit = trail[index--];
+            conflict = reason[lit >> 1];
+            seen[lit >> 1] = false;
+            open--;
+        } while (open > 0);
+        learnt.values[0] = lit ^ 1;
+
+        int backjump = 0;
+        int second = 1;
+        for (int k = 1; k < learnt.size(); k++) {
+            int v = learnt.get(k) >> 1;
+            seen[v] = false;
+            if (level[v] > backjump) {
+                backjump = level[v];
+                second = k;
+            }
+        }
+        if (learnt.size() > 1) {
+            int swap = learnt.values[1];
+            learnt.values[1] = learnt.values[second];
+            learnt.values[second] = swap;
+        }
+        return backjump;
+    }
+
+    //Undoes every assignment above the level
+    void backtrack(int to) {
+        if (levelStart.size() <= to) {
+            return;
+        }
+        int start = levelStart.get(to);
+        for (int i = trailSize - 1; i >= start; i--) {
+            int v = trail[i] >> 1;
+            phase[v] = (trail[i] & 1) == 0;
+            value[trail[i]] = 0;
+            value[trail[i] ^ 1] = 0;
+            reason[v] = -1;
+            if (heapIndex[v] == -1) {
+                insert(v);
+            }
+        }
+        trailSize = start;
+        queueHead = start;
+        levelStart.size = to;
+    }
+
+    //Unassigned variable with the highest activity, or -1 if every variable has a value
+    int nextVariable() {
+        while (heapSize > 0) {
+            int v = removeMax();
+            if (value[2 * v] == 0) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    void bump(int v) {
+        activity[v] += increment;
+        if (activity[v] > 1e100) {
+            for (int u = 1; u <= vars; u++) {
+                activity[u] *= 1e-100;
+            }
+            increment *= 1e-100;
+        }
+        if (heapIndex[v] != -1) {
+            up(heapIndex[v]);
+        }
+    }
+
+    //1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...
+    static long luby(int i) {
+        int size = 1;
+        int sequence = 0;
+        while (size < i + 1) {
+            sequence++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != i) {
+            size = (size - 1) >> 1;
+            sequence--;
+            i = i % size;
+        }
+        return 1L << sequence;
+    }
+
+    void insert(int v) {
+        heap[heapSize] = v;
+        heapIndex[v] = heapSize;
+        up(heapSize++);
+    }
+
+    int removeMax() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            down(0);
+        }
+        return top;
+    }
+
+    void up(int i) {
+        int v = heap[i];
+        while (i > 0 && activity[heap[(i - 1) >> 1]] < activity[v]) {
+            heap[i] = heap[(i - 1) >> 1];
+            heapIndex[heap[i]] = i;
+            i = (i - 1) >> 1;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    void down(int i) {
+        int v = heap[i];
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+                child++;
+            }
+            if (activity[heap[child]] <= activity[v]) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+}
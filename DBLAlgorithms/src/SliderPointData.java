@@ -0,0 +1,46 @@
+import java.io.IOException;
+
+/**
+ * Result for a point in the 1slider model, the label slides horizontally along the top of the point
+ */
+class SliderPointData extends PointData {
+
+    int width;
+    int labelX; //Left of the label
+    boolean placed;
+
+    public SliderPointData(int x, int y, int width) {
+        super(x, y);
+        this.width = width;
+    }
+
+    double getShift() {
+        if (width == 0) {
+            return 0;
+        }
+        return 1.0 - ((double) (x - labelX) / (double) width);
+    }
+
+    @Override
+    String getLabelInfo() {
+        if (placed) {
+            return String.valueOf(getShift());
+        } else {
+            return "NIL";
+        }
+    }
+
+    @Override
+    boolean hasLabel() {
+        return placed;
+    }
+
+    @Override
+    void writeLabelInfo(OutputWriter out) throws IOException {
+        if (placed) {
+            out.writeDouble(getShift());
+        } else {
+            out.writeBytes(CandidatePointData.NIL);
+        }
+    }
+}
@@ -5,9 +5,11 @@ import java.util.List;
 
 class SliderQuadTree {
     private Node root;
+    private LabelingContext context;
 
     
-    public SliderQuadTree() {
+    public SliderQuadTree(LabelingContext context) {
+        this.context = context;
     }
 
     // helper node data type
@@ -47,8 +49,8 @@ class SliderQuadTree {
     ***********************************************************************/
 
     public List<ForceLabel> findNeighbours(ForceLabel label) {
-        Interval<Integer> intX = new Interval<Integer>(label.point.x - 2 * Globals.width, label.point.x + 2 * Globals.width);
-        Interval<Integer> intY = new Interval<Integer>(label.point.y - Globals.height, label.point.y + Globals.height);
+        Interval<Integer> intX = new Interval<Integer>(label.point.x - 2 * context.width, label.point.x + 2 * context.width);
+        Interval<Integer> intY = new Interval<Integer>(label.point.y - context.height, label.point.y + context.height);
         Interval2D<Integer> rect = new Interval2D<Integer>(intX, intY);
         HashSet<ForceLabel> result = new HashSet<>();
         query2D(root, rect, result);
@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the solvers on small instances of which the number of labels is known and checks they
+ * find that many, the number of random instances is found by BruteForceSolver.
+ * Exits with status 1 when a solver finds a different number.
+ * Usage: java SolverCheck [random instances]
+ */
+public class SolverCheck {
+
+    static final int WIDTH = 20;
+    static final int HEIGHT = 10;
+    static final String[] MODELS = {"2pos", "4pos"};
+    static final String[] SOLVERS = {"GreedyGeneral", "BruteForceSolver", "BranchAndBoundSolver",
+        "MaxSatSolver", "DecompositionSolver"};
+
+    public static void main(String[] args) {
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        boolean failed = false;
+        //Labels without area never overlap, not even those of points at the same position
+        for (String model : MODELS) {
+            for (String name : SOLVERS) {
+                failed |= check(name, model, 0, HEIGHT, coincidentPoints(20, 30, new Random(1)));
+                failed |= check(name, model, WIDTH, 0, coincidentPoints(20, 30, new Random(2)));
+            }
+        }
+        //2-SAT labels all points when that is possible, otherwise it is a heuristic
+        failed |= compare("2pos", WIDTH, HEIGHT, false, instances, "TwoSatSolver");
+        //The exact solvers find the optimum, also when labels have no area and points share a position
+        for (String model : MODELS) {
+            for (int[] size : new int[][]{{WIDTH, HEIGHT}, {0, HEIGHT}, {WIDTH, 0}}) {
+                failed |= compare(model, size[0], size[1], true, instances, "MaxSatSolver", "BranchAndBoundSolver");
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a solver on the points and checks that it labels all of them
+     * @return true if it did not or returned overlapping labels
+     */
+    static boolean check(String name, String model, int width, int height, List<Point> points) {
+        return check(name, model, width, height, points, points.size());
+    }
+
+    /**
+     * Runs a solver on the points and prints the number of labels it found
+     * @param labels the number of labels an optimal labeling has
+     * @return true if the solver found a different number or returned overlapping labels
+     */
+    static boolean check(String name, String model, int width, int height, List<Point> points, int labels) {
+        int n = points.size();
+        int count = run(name, model, width, height, points);
+        boolean failed = count != labels;
+        System.out.println(name + " " + model + " " + width + "x" + height + " n=" + n + ": " + count
+                + " labels" + (count == -1 ? ", overlapping" : "") + (failed ? ", FAILED, expected " + labels : ""));
+        return failed;
+    }
+
+    /**
+     * Compares solvers with BruteForceSolver on random instances of up to 30 points for 2pos and
+     * up to 20 points for 4pos, prints the instances they fail on and the number of labels they missed
+     * @param exact true if the solvers have to find an optimal labeling, false if only when all points can be labeled
+     * @return true if one failed on an instance
+     */
+    static boolean compare(String model, int width, int height, boolean exact, int instances, String... names) {
+        int[] failures = new int[names.length];
+        int[] missed = new int[names.length];
+        for (int seed = 0; seed < instances; seed++) {
+            Random random = new Random(seed);
+            int n = 5 + random.nextInt(model.equals("2pos") ? 25 : 15);
+            int range = 40 + random.nextInt(60);
+            List<Point> points = random.nextBoolean() ? coincidentPoints(n, range, random)
+                    : DeadlineBenchmark.randomPoints(n, range, random);
+            int labels = run("BruteForceSolver", model, width, height, points);
+            for (int s = 0; s < names.length; s++) {
+                int count = run(names[s], model, width, height, points);
+                if (count == -1 || count > labels || count < labels && (exact || labels == n)) {
+                    System.out.println(names[s] + " " + model + " " + width + "x" + height + " seed=" + seed + ": "
+                            + count + " labels, FAILED, expected " + labels);
+                    failures[s]++;
+                } else {
+                    missed[s] += labels - count;
+                }
+            }
+        }
+        boolean failed = false;
+        for (int s = 0; s < names.length; s++) {
+            System.out.println(names[s] + " " + model + " " + width + "x" + height + ": " + instances + " instances, "
+                    + failures[s] + " failed, " + missed[s] + " labels less than optimal");
+            failed |= failures[s] > 0;
+        }
+        return failed;
+    }
+
+    //Number of labels the solver finds for the points, -1 if they overlap or a point is missing
+    static int run(String name, String model, int width, int height, List<Point> points) {
+        LabelingContext context = new LabelingContext(width, height, points.size());
+        List<PointData> result = SolverPortfolio.run(DeadlineBenchmark.solver(name, context), model, points);
+        if (result.size() != points.size() || !new SolverPortfolio(context, 0).isFeasible(model, result)) {
+            return -1;
+        }
+        return SolverPortfolio.countLabels(result);
+    }
+
+    //n points in a range by range square, every position is used by a few of them
+    static List<Point> coincidentPoints(int n, int range, Random random) {
+        List<Point> points = new ArrayList<>(n);
+        while (points.size() < n) {
+            Point point = new Point(random.nextInt(range), random.nextInt(range));
+            for (int copies = 1 + random.nextInt(3); copies > 0 && points.size() < n; copies--) {
+                points.add(new Point(point.x, point.y));
+            }
+        }
+        return points;
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Labels an instance within a wall-clock budget. The greedy solver gives a first answer,
+ * then the improvement solvers that fit the model and the size run on daemon threads until
+ * they are done or the budget is used up. The answer with the most labels is returned,
+ * results that have overlapping labels are never used.
+ * The solvers get a deadline a bit before the end of the budget, so they can still hand in
+ * the best labeling they have when time runs out.
+ */
+class SolverPortfolio {
+
+    static final int EXACT_INSTANCE = 200; //Up to this many points the exact solvers are tried on the whole input
+    static final int ANNEALING_LIMIT = 1000; //Up to this many points the annealing is tried for 1slider
+    static final double EPS = 1e-9;
+    static final int MARGIN_PERCENT = 10; //Part of the budget kept for handing in the answers
+
+    LabelingContext context;
+    long budget; //Milliseconds
+    String best; //Name of the solver that gave the returned answer
+
+    public SolverPortfolio(LabelingContext context, long budget) {
+        this.context = context;
+        this.budget = budget;
+    }
+
+    /**
+     * Labels the points within the budget
+     * @param model the placement model: 2pos, 4pos or 1slider
+     * @param points the points to label
+     * @return the labeling with the most labels found in time
+     */
+    List<PointData> solve(String model, List<Point> points) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget);
+        Deadline stop = Deadline.after(budget - budget * MARGIN_PERCENT / 100);
+        //The greedy answer is the fallback, so it always runs to the end
+        List<PointData> result = run(new GreedyGeneral(context.forPoints(points.size())), model, points);
+        LabelingContext context = this.context.withDeadline(stop);
+        int labels = countLabels(result);
+        best = "greedy";
+
+        List<LabelSolver> solvers = improvementSolvers(context, model, points.size());
+        if (solvers.isEmpty() || labels == points.size()) {
+            stop.cancel();
+            return result;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(solvers.size(), Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "portfolio");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ExecutorCompletionService<List<PointData>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<List<PointData>>> futures = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (LabelSolver solver : solvers) {
+            Callable<List<PointData>> task = () -> run(solver, model, points);
+            futures.add(completion.submit(task));
+            names.add(solver.getClass().getSimpleName());
+        }
+        try {
+            for (int done = 0; done < solvers.size() && labels < points.size(); done++) {
+                long left = deadline - System.nanoTime();
+                Future<List<PointData>> future = completion.poll(Math.max(left, 0), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    break; //Out of time
+                }
+                List<PointData> candidate;
+                try {
+                    candidate = future.get();
+                } catch (ExecutionException e) {
+                    continue; //A failing improvement solver does not matter, there is always the greedy answer
+                }
+                try {
+                    if (!isComplete(candidate, points.size())) {
+                        continue;
+                    }
+                    int candidateLabels = countLabels(candidate);
+                    if (candidateLabels > labels && isFeasible(model, candidate)) {
+                        result = candidate;
+                        labels = candidateLabels;
+                        best = names.get(futures.indexOf(future));
+                    }
+                } catch (RuntimeException e) {
+                    continue; //A malformed answer is treated like a failing solver
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            //Solvers that are still running stop at their next check
+            stop.cancel();
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    //Solvers that can improve on greedy for this model and number of points
+    static List<LabelSolver> improvementSolvers(LabelingContext context, String model, int n) {
+        List<LabelSolver> solvers = new ArrayList<>();
+        switch (model) {
+            case "2pos":
+                solvers.add(new TwoSatSolver(context.forPoints(n)));
+                solvers.add(new DecompositionSolver(context.forPoints(n)));
+                break;
+            case "4pos":
+                solvers.add(new DecompositionSolver(context.forPoints(n)));
+                break;
+            case "1slider":
+                if (n <= ANNEALING_LIMIT) {
+                    //With more than one core the annealing runs as replicas on all of them
+                    solvers.add(Runtime.getRuntime().availableProcessors() > 1
+                            ? new ParallelTempering(context.forPoints(n))
+                            : new ForceDirectedSimulatedAnnealing(context.forPoints(n)));
+                }
+                return solvers;
+            default:
+                throw new IllegalArgumentException("Unknown placement model: " + model);
+        }
+        if (n <= EXACT_INSTANCE) {
+            //The matching bound of the branch and bound solver proves sparse inputs fast, clause learning copes better with dense ones
+            solvers.add(new BranchAndBoundSolver(context.forPoints(n)));
+            solvers.add(new MaxSatSolver(context.forPoints(n)));
+        }
+        return solvers;
+    }
+
+    static List<PointData> run(LabelSolver solver, String model, List<Point> points) {
+        switch (model) {
+            case "2pos":
+                return solver.getLabeledPoints2pos(points);
+            case "4pos":
+                return solver.getLabeledPoints4pos(points);
+            case "1slider":
+                return solver.getLabeledPoints1slider(points);
+            default:
+                throw new IllegalArgumentException("Unknown placement model: " + model);
+        }
+    }
+
+    //Does the answer have a point for every input point?
+    static boolean isComplete(List<? extends PointData> points, int n) {
+        if (points == null || points.size() != n) {
+            return false;
+        }
+        for (PointData point : points) {
+            if (point == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int countLabels(List<? extends PointData> points) {
+        int labels = 0;
+        for (PointData point : points) {
+            if (point.hasLabel()) {
+                labels++;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Checks that no two labels overlap, by sorting the labels on their left side
+     * and comparing every label with the ones that start less than a width to its right
+     * @param model the placement model
+     * @param points the labeled points
+     * @return true if no two labels overlap
+     */
+    boolean isFeasible(String model, List<? extends PointData> points) {
+        int width = context.width;
+        int height = context.height;
+        List<double[]> labels = new ArrayList<>();
+        for (PointData point : points) {
+            if (!point.hasLabel()) {
+                continue;
+            }
+            String info = point.getLabelInfo();
+            double x;
+            double y = point.y;
+            if (model.equals("1slider")) {
+                x = point.x - width + Double.parseDouble(info) * width;
+            } else {
+                x = info.charAt(1) == 'E' ? point.x : point.x - width;
+                y = info.charAt(0) == 'N' ? point.y : point.y - height;
+            }
+            labels.add(new double[] {x, y});
+        }
+        double[][] sorted = labels.toArray(new double[0][]);
+        Arrays.sort(sorted, (a, b) -> Double.compare(a[0], b[0]));
+        for (int i = 0; i < sorted.length; i++) {
+            for (int j = i + 1; j < sorted.length && sorted[j][0] - sorted[i][0] < width - EPS; j++) {
+                if (Math.abs(sorted[j][1] - sorted[i][1]) < height - EPS) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
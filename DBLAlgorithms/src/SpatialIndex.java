@@ -0,0 +1,43 @@
+/**
+ * Overlap queries over a fixed set of labels that all have the same width and height.
+ * A label is identified by its position in the arrays the index was built from.
+ */
+interface SpatialIndex {
+
+    /**
+     * Adds the ids of all labels that overlap a label placed at (x, y) to result.
+     * Labels that only touch do not overlap, a label at (x, y) itself is included.
+     * @param x left of the label
+     * @param y bottom of the label
+     * @param result buffer the ids are added to, it is not cleared
+     */
+    void query(int x, int y, IntList result);
+
+    /**
+     * Builds the index selected by the context over the labels
+     * @param xs left of every label, the id of a label is its position in this array
+     * @param ys bottom of every label
+     * @param context the run, gives the size of the labels and the index
+     * @return the index
+     */
+    static SpatialIndex create(int[] xs, int[] ys, LabelingContext context) {
+        int width = context.width;
+        int height = context.height;
+        switch (context.index) {
+            case "quadtree":
+                QuadTree quadTree = new QuadTree(width, height);
+                for (int i = 0; i < xs.length; i++) {
+                    LabelGeneral label = new LabelGeneral(null, xs[i], ys[i]);
+                    label.id = i;
+                    quadTree.insert(label);
+                }
+                return quadTree;
+            case "grid":
+                return new GridIndex(xs, ys, width, height);
+            case "rtree":
+                return new PackedRTree(xs, ys, width, height);
+            default:
+                throw new IllegalArgumentException("Unknown spatial index: " + context.index);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves the 2pos model as a 2-SAT instance. Point p is a variable, candidate 2p (NE) is
+ * the literal p and candidate 2p + 1 (NW) is its negation, two overlapping candidates a and b
+ * give the clause (not a or not b), so the implications a -> not b and b -> not a.
+ * The instance is satisfiable iff no strongly connected component of the implication graph
+ * holds both candidates of a point, then every point gets a label.
+ * Otherwise the points of every group of overlapping points that can not be labeled completely
+ * are labeled by the greedy algorithm, and the points it could not label are added back one at
+ * a time: a point is added with a candidate if unit propagation from that candidate on the
+ * implication graph ends without a conflict, and the literals it set stay fixed from then on.
+ * What is left unfixed is part of a satisfiable instance, so it never conflicts with them.
+ */
+class TwoSatSolver extends LabelSolver {
+
+    int points;
+    ConflictGraph graph; //Overlaps between the candidates, candidate c belongs to point c / 2
+    boolean[] active; //Points that are still in the 2-SAT instance
+    int[] component; //Strongly connected component of every candidate, in reverse topological order
+    int groups;
+    int[] group; //Group of every point, points in different groups have no overlapping candidates
+    int[] members; //Points ordered by group
+    int[] groupStart; //The points of group g are members[groupStart[g]] up to members[groupStart[g + 1]]
+    int[] value; //Fixed candidate of every point, 0 or 1, -1 if it is not fixed
+    int[] trail; //Candidates fixed by the current propagation
+
+    //Scratch space for tarjan
+    int[] index;
+    int[] low;
+    int[] stack;
+    boolean[] onStack;
+    int[] callStack;
+    int[] edge;
+
+    public TwoSatSolver(LabelingContext context) {
+        super(context);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints2pos(List<Point> points) {
+        this.points = points.size();
+        int n = 2 * this.points;
+        graph = ConflictGraph.ofCandidates(points, 2, context);
+
+        active = new boolean[this.points];
+        Arrays.fill(active, true);
+        value = new int[this.points];
+        Arrays.fill(value, -1);
+        trail = new int[this.points];
+        component = new int[n];
+        index = new int[n];
+        low = new int[n];
+        stack = new int[n];
+        onStack = new boolean[n];
+        callStack = new int[n];
+        edge = new int[n];
+        groupPoints();
+
+        //Groups that can not be labeled completely are labeled by the greedy algorithm first
+        tarjan(0, this.points);
+        boolean[] unsatisfiable = new boolean[groups];
+        for (int p = 0; p < this.points; p++) {
+            if (component[2 * p] == component[2 * p + 1]) {
+                unsatisfiable[group[p]] = true;
+            }
+        }
+        IntList hard = new IntList();
+        List<Point> hardPoints = new ArrayList<>();
+        for (int p = 0; p < this.points; p++) {
+            if (unsatisfiable[group[p]]) {
+                hard.add(p);
+                hardPoints.add(points.get(p));
+            }
+        }
+        IntList removed = new IntList();
+        if (!hard.isEmpty()) {
+            int[] greedy = GreedyGeneral.chooseCandidates(context, hardPoints, 2);
+            for (int i = 0; i < hard.size(); i++) {
+                if (greedy[i] == -1) {
+                    active[hard.get(i)] = false;
+                    removed.add(hard.get(i));
+                }
+            }
+        }
+
+        //The labeled points are satisfiable, now try to add the others back one by one
+        //starting with the ones with the fewest conflicts
+        long[] order = new long[removed.size()];
+        for (int i = 0; i < removed.size(); i++) {
+            order[i] = ((long) activeDegree(removed.get(i)) << 32) | removed.get(i);
+        }
+        Arrays.sort(order);
+        for (int i = 0; i < order.length && !outOfTime(); i++) {
+            int p = (int) order[i];
+            active[p] = true;
+            if (!propagate(2 * p) && !propagate(2 * p + 1)) {
+                active[p] = false;
+            }
+        }
+        tarjan(0, this.points);
+
+        //Take the fixed literal, or else the literal of the variable whose component comes later in topological order
+        List<PointData> result = new ArrayList<>(this.points);
+        for (int p = 0; p < this.points; p++) {
+            Point point = points.get(p);
+            CandidatePointData pointData = new CandidatePointData(point.x, point.y);
+            if (value[p] != -1) {
+                pointData.candidate = value[p];
+            } else if (active[p]) {
+                pointData.candidate = component[2 * p] < component[2 * p + 1] ? 0 : 1;
+            }
+            result.add(pointData);
+        }
+        return result;
+    }
+
+    /**
+     * Fixes candidate c and everything it implies: every active candidate overlapping a fixed
+     * one is false, so the other candidate of its point is fixed too.
+     * On a conflict with a fixed candidate all candidates fixed by this call are unfixed again.
+     * @return true if there was no conflict
+     */
+    boolean propagate(int c) {
+        int top = 0;
+        value[c / 2] = c & 1;
+        trail[top++] = c;
+        for (int i = 0; i < top; i++) {
+            int v = trail[i];
+            for (int j = graph.offsets[v]; j < graph.offsets[v + 1]; j++) {
+                int w = graph.neighbours[j] ^ 1;
+                int q = w / 2;
+                if (!active[q] || value[q] == (w & 1)) {
+                    continue;
+                }
+                if (value[q] != -1) {
+                    for (int k = 0; k < top; k++) {
+                        value[trail[k] / 2] = -1;
+                    }
+                    return false;
+                }
+                value[q] = w & 1;
+                trail[top++] = w;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    List<PointData> getLabeledPoints4pos(List<Point> points) {
+        return new GreedyGeneral(context).getLabeledPoints4pos(points);
+    }
+
+    @Override
+    List<PointData> getLabeledPoints1slider(List<Point> points) {
+        return new GreedyGeneral(context).getLabeledPoints1slider(points);
+    }
+
+    //Number of overlaps of the candidates of point p with candidates of active points
+    int activeDegree(int p) {
+        int degree = 0;
+        for (int i = graph.offsets[2 * p]; i < graph.offsets[2 * p + 2]; i++) {
+            if (active[graph.neighbours[i] / 2]) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    //Splits the points into groups that are connected by overlapping candidates
+    void groupPoints() {
+        group = new int[points];
+        Arrays.fill(group, -1);
+        members = new int[points];
+        IntList starts = new IntList();
+        groups = 0;
+        int size = 0;
+        for (int start = 0; start < points; start++) {
+            if (group[start] != -1) {
+                continue;
+            }
+            starts.add(size);
+            group[start] = groups;
+            members[size++] = start;
+            //The members array doubles as the queue of a breadth first search
+            for (int i = size - 1; i < size; i++) {
+                int p = members[i];
+                for (int j = graph.offsets[2 * p]; j < graph.offsets[2 * p + 2]; j++) {
+                    int q = graph.neighbours[j] / 2;
+                    if (group[q] == -1) {
+                        group[q] = groups;
+                        members[size++] = q;
+                    }
+                }
+            }
+            groups++;
+        }
+        starts.add(size);
+        groupStart = Arrays.copyOf(starts.values, starts.size());
+    }
+
+    /**
+     * Finds the strongly connected components of the implication graph restricted to the active
+     * points that are not fixed in members[from] up to members[to], which has to be a union of groups, with Tarjan's
+     * algorithm using an explicit call stack instead of recursion.
+     * Components are numbered in the order they are completed, which is reverse topological order.
+     */
+    void tarjan(int from, int to) {
+        for (int i = from; i < to; i++) {
+            index[2 * members[i]] = -1;
+            index[2 * members[i] + 1] = -1;
+        }
+        int counter = 0;
+        int components = 0;
+        int top = 0; //Size of the component stack
+        for (int i = 2 * from; i < 2 * to; i++) {
+            int start = 2 * members[i / 2] + (i & 1);
+            if (!active[start / 2] || value[start / 2] != -1 || index[start] != -1) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = start;
+            index[start] = low[start] = counter++;
+            edge[start] = graph.offsets[start];
+            stack[top++] = start;
+            onStack[start] = true;
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (edge[v] < graph.offsets[v + 1]) {
+                    //Edge v -> not w for every candidate w overlapping v
+                    int w = graph.neighbours[edge[v]++] ^ 1;
+                    if (!active[w / 2] || value[w / 2] != -1) {
+                        continue;
+                    }
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        edge[w] = graph.offsets[w];
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    depth--;
+                    if (low[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--top];
+                            onStack[w] = false;
+                            component[w] = components;
+                        } while (w != v);
+                        components++;
+                    }
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        low[parent] = Math.min(low[parent], low[v]);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -9,9 +9,8 @@ class GreedySolver extends LabelSolver {
     ModelSpecificSolver solver;
     List<PointData> pointData;
     
-    GreedySolver (int w, int h) {
-        width = w;
-        height = h;
+    GreedySolver (LabelingContext context) {
+        super(context);
         pointData = new ArrayList<>();
     }
 